@@ -19,6 +19,7 @@
 package com.vanillasource.jaywire.ee;
 
 import com.vanillasource.jaywire.standalone.StandaloneModule;
+import com.vanillasource.jaywire.standalone.ConstructionProfiler;
 import com.vanillasource.jaywire.web.SessionScopeSupport;
 import com.vanillasource.jaywire.web.RequestScopeSupport;
 import com.vanillasource.jaywire.Scope;
@@ -56,6 +57,17 @@ public abstract class EnterpriseModule extends StandaloneModule implements Sessi
    @Inject
    private CdiSessionScope sessionScope;
 
+   public EnterpriseModule() {
+   }
+
+   /**
+    * Create the module with profiling of the singleton and thread local
+    * scopes enabled.
+    */
+   protected EnterpriseModule(ConstructionProfiler constructionProfiler) {
+      super(constructionProfiler);
+   }
+
    List<Bean<?>> getBeans() {
       return exportedBeans;
    }
@@ -20,8 +20,10 @@ package com.vanillasource.jaywire.servlet;
 
 import com.vanillasource.jaywire.Scope;
 import com.vanillasource.jaywire.standalone.StandaloneModule;
+import com.vanillasource.jaywire.standalone.ConstructionProfiler;
 import com.vanillasource.jaywire.web.ServletRequestScopeModule;
 import com.vanillasource.jaywire.web.HttpSessionScopeModule;
+import com.vanillasource.jaywire.web.ScopePropagationModule;
 import javax.servlet.ServletContextListener;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContext;
@@ -31,11 +33,20 @@ import javax.servlet.ServletException;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
+import javax.servlet.FilterRegistration;
+import javax.servlet.DispatcherType;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpSessionListener;
 import javax.servlet.http.HttpSessionEvent;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpSession;
 import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Integration with standard Java Servlet contexts. The module
@@ -45,13 +56,30 @@ import java.io.IOException;
  * The module automatically closes if the web application is destroyed
  * or unloaded, so all components registered with <code>closeWithModule()</code>
  * will also be closed.<br>
+ * Request and session scoped objects that are <code>AutoCloseable</code> are closed
+ * when the request completes, or the session is invalidated or expires.<br>
+ * Asynchronous requests are supported, tasks started through the
+ * <code>AsyncContext</code> and asynchronous dispatches see the same request
+ * and session scopes as the original request. Sessions are only created when
+ * a session scoped object is first requested.<br>
  * Register this module as a <code>ServletContextListener</code> to make it work.
  * Either annotate the class with <code>WebListener</code> or register it
  * in the <i>web.xml</i> as a listener.
  */
 public abstract class ServletModule
       extends StandaloneModule
-      implements ServletRequestScopeModule, HttpSessionScopeModule, ServletContextListener {
+      implements ServletRequestScopeModule, HttpSessionScopeModule, ScopePropagationModule, ServletContextListener {
+
+   public ServletModule() {
+   }
+
+   /**
+    * Create the module with profiling of the singleton and thread local
+    * scopes enabled.
+    */
+   protected ServletModule(ConstructionProfiler constructionProfiler) {
+      super(constructionProfiler);
+   }
 
    @Override
    public void contextInitialized(ServletContextEvent event) {
@@ -61,32 +89,71 @@ public abstract class ServletModule
    }
 
    private void registerInfrastructure(ServletContext context) {
-      context.addFilter("JayWireScopeFilter", new Filter() {
-         @Override
-         public void init(FilterConfig config) {
-         }
+      FilterRegistration.Dynamic registration = context.addFilter("JayWireScopeFilter", new JayWireScopeFilter());
+      registration.setAsyncSupported(true);
+      registration.addMappingForUrlPatterns(getScopeDispatcherTypes(), false, getScopeUrlPatterns());
+      context.log("JayWire servlet module "+getClass().getName()+" activated");
+   }
 
-         @Override
-         public void destroy() {
-         }
+   /**
+    * Override this method to bind the request and session scopes only
+    * for some URL patterns. By default all requests are covered.
+    */
+   protected String[] getScopeUrlPatterns() {
+      return new String[] { "/*" };
+   }
 
-         @Override
-         public void doFilter(ServletRequest request, 
-               ServletResponse response, FilterChain chain) throws ServletException, IOException {
-            getServletRequestScope().setStorage(request);
-            if (request instanceof HttpServletRequest) {
-               HttpServletRequest httpRequest = (HttpServletRequest) request;
-               getHttpSessionScope().setStorage(httpRequest.getSession(true));
-            }
-            try {
-               chain.doFilter(request, response);
-            } finally {
-               getServletRequestScope().clearStorage();
-               getHttpSessionScope().clearStorage();
+   /**
+    * Override this method to bind the request and session scopes for other
+    * dispatches. By default requests and asynchronous dispatches are covered.
+    */
+   protected EnumSet<DispatcherType> getScopeDispatcherTypes() {
+      return EnumSet.of(DispatcherType.REQUEST, DispatcherType.ASYNC);
+   }
+
+   /**
+    * Override this method to exclude paths from binding the request and
+    * session scopes, like static resources or health checks. Paths are matched
+    * against the decoded path within the context, that is the servlet path and
+    * path info. A path ending in <code>/*</code> excludes the path before it and all
+    * paths under it, like servlet mappings do.
+    * By default no paths are excluded.
+    */
+   protected Collection<String> getScopeExcludedPaths() {
+      return Collections.emptyList();
+   }
+
+   private boolean isExcluded(HttpServletRequest request, Collection<String> excludedPaths) {
+      String path = request.getServletPath();
+      if (request.getPathInfo() != null) {
+         path += request.getPathInfo();
+      }
+      for (String excludedPath : excludedPaths) {
+         if (excludedPath.endsWith("/*")) {
+            String prefix = excludedPath.substring(0, excludedPath.length() - 2);
+            if (path.equals(prefix) || path.startsWith(prefix + "/")) {
+               return true;
             }
+         } else if (path.equals(excludedPath)) {
+            return true;
          }
-      }).addMappingForUrlPatterns(null, false, "/*");
-      context.log("JayWire servlet module "+getClass().getName()+" activated");
+      }
+      return false;
+   }
+
+   /**
+    * Called when a request is completely finished. This is after the
+    * filter chain returns for synchronous requests, or when asynchronous
+    * processing completes, times out or fails. By default closes the request scoped
+    * objects that are <code>AutoCloseable</code>, and logs failures to do so.
+    * Override to release other resources bound to the request, but call this method too.
+    */
+   protected void onRequestCompleted(ServletRequest request) {
+      try {
+         getServletRequestScope().closeObjects(request);
+      } catch (RuntimeException e) {
+         request.getServletContext().log("could not close request scoped objects", e);
+      }
    }
 
    /**
@@ -103,5 +170,194 @@ public abstract class ServletModule
          throw new RuntimeException("error closing servlet module", e);
       }
    }
-}
 
+   @Override
+   protected void createInfrastructure() {
+      super.createInfrastructure();
+      getServletRequestScope();
+      getHttpSessionScope();
+   }
+
+   /**
+    * Binds the request and session scopes for each dispatch, including
+    * asynchronous dispatches. Nested dispatches, like includes, restore the
+    * binding of the outer dispatch when they return. Tasks started through the <code>AsyncContext</code>
+    * also run with the scopes of the request.
+    */
+   private class JayWireScopeFilter implements Filter {
+      private final Collection<String> excludedPaths = getScopeExcludedPaths();
+
+      @Override
+      public void init(FilterConfig config) {
+      }
+
+      @Override
+      public void destroy() {
+      }
+
+      @Override
+      public void doFilter(ServletRequest request, 
+            ServletResponse response, FilterChain chain) throws ServletException, IOException {
+         if (!excludedPaths.isEmpty() && request instanceof HttpServletRequest &&
+               isExcluded((HttpServletRequest) request, excludedPaths)) {
+            chain.doFilter(request, response);
+            return;
+         }
+         try {
+            getServletRequestScope().callWithStorage(request, () -> {
+               if (request instanceof HttpServletRequest) {
+                  HttpServletRequest httpRequest = (HttpServletRequest) request;
+                  return getHttpSessionScope().callWithLazyStorage(() -> httpRequest.getSession(true), () -> {
+                     chain.doFilter(new ScopeBindingRequest(httpRequest), response);
+                     return null;
+                  });
+               }
+               chain.doFilter(request, response);
+               return null;
+            });
+         } catch (IOException | ServletException | RuntimeException e) {
+            throw e;
+         } catch (Exception e) {
+            throw new ServletException(e);
+         } finally {
+            if (request.isAsyncStarted()) {
+               request.getAsyncContext().addListener(new RequestCompletionListener(request));
+            } else if (request.getDispatcherType() == DispatcherType.REQUEST) {
+               onRequestCompleted(request);
+            }
+         }
+      }
+   }
+
+   /**
+    * Request wrapper that hands out scope binding asynchronous contexts.
+    */
+   private class ScopeBindingRequest extends HttpServletRequestWrapper {
+      private ScopeBindingRequest(HttpServletRequest request) {
+         super(request);
+      }
+
+      @Override
+      public AsyncContext startAsync() {
+         return new ScopeBindingAsyncContext(super.startAsync());
+      }
+
+      @Override
+      public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+         return new ScopeBindingAsyncContext(super.startAsync(request, response));
+      }
+
+      @Override
+      public AsyncContext getAsyncContext() {
+         return new ScopeBindingAsyncContext(super.getAsyncContext());
+      }
+   }
+
+   /**
+    * Notifies the module when an asynchronous request finishes. The container
+    * completes the request after timeouts and errors too, so only completion
+    * needs to be handled.
+    */
+   private class RequestCompletionListener implements AsyncListener {
+      private final ServletRequest request;
+
+      private RequestCompletionListener(ServletRequest request) {
+         this.request = request;
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) {
+         // Asynchronous processing restarted, the filter registers a new listener
+      }
+
+      @Override
+      public void onComplete(AsyncEvent event) {
+         onRequestCompleted(request);
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event) {
+      }
+
+      @Override
+      public void onError(AsyncEvent event) {
+      }
+   }
+
+   /**
+    * Asynchronous context that runs started tasks with the current
+    * request and session scopes.
+    */
+   private class ScopeBindingAsyncContext implements AsyncContext {
+      private final AsyncContext delegate;
+
+      private ScopeBindingAsyncContext(AsyncContext delegate) {
+         this.delegate = delegate;
+      }
+
+      @Override
+      public void start(Runnable run) {
+         delegate.start(propagateScopes(run));
+      }
+
+      @Override
+      public ServletRequest getRequest() {
+         return delegate.getRequest();
+      }
+
+      @Override
+      public ServletResponse getResponse() {
+         return delegate.getResponse();
+      }
+
+      @Override
+      public boolean hasOriginalRequestAndResponse() {
+         return delegate.hasOriginalRequestAndResponse();
+      }
+
+      @Override
+      public void dispatch() {
+         delegate.dispatch();
+      }
+
+      @Override
+      public void dispatch(String path) {
+         delegate.dispatch(path);
+      }
+
+      @Override
+      public void dispatch(ServletContext context, String path) {
+         delegate.dispatch(context, path);
+      }
+
+      @Override
+      public void complete() {
+         delegate.complete();
+      }
+
+      @Override
+      public void addListener(AsyncListener listener) {
+         delegate.addListener(listener);
+      }
+
+      @Override
+      public void addListener(AsyncListener listener, ServletRequest request, ServletResponse response) {
+         delegate.addListener(listener, request, response);
+      }
+
+      @Override
+      public <T extends AsyncListener> T createListener(Class<T> listenerClass) throws ServletException {
+         return delegate.createListener(listenerClass);
+      }
+
+      @Override
+      public void setTimeout(long timeout) {
+         delegate.setTimeout(timeout);
+      }
+
+      @Override
+      public long getTimeout() {
+         return delegate.getTimeout();
+      }
+   }
+}
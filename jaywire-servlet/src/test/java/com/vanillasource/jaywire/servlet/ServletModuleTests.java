@@ -0,0 +1,190 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.servlet;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeMethod;
+import static org.testng.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.Matchers.*;
+import org.mockito.ArgumentCaptor;
+import com.vanillasource.jaywire.Factory;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterRegistration;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Test
+public class ServletModuleTests {
+   private ServletContext context;
+   private ServletResponse response;
+   private Filter filter;
+   private TestModule module;
+   private Factory<Object> factory = Object::new;
+
+   public void testRequestScopeIsBoundInFilterChain() throws Exception {
+      HttpServletRequest request = request("/app", null, DispatcherType.REQUEST);
+      AtomicReference<Object> object = new AtomicReference<>();
+
+      filter.doFilter(request, response, (chainRequest, chainResponse) ->
+            object.set(module.getServletRequestScope().get(factory)));
+
+      assertNotNull(object.get());
+   }
+
+   public void testExcludedPathIsNotBound() throws Exception {
+      assertFalse(isBound(request("/health", "/live", DispatcherType.REQUEST)));
+   }
+
+   public void testBarePathOfExcludedPatternIsNotBound() throws Exception {
+      assertFalse(isBound(request("/health", null, DispatcherType.REQUEST)));
+   }
+
+   public void testExactExcludedPathIsNotBound() throws Exception {
+      assertFalse(isBound(request("/status", null, DispatcherType.REQUEST)));
+   }
+
+   public void testPathWithExcludedPrefixIsBound() throws Exception {
+      assertTrue(isBound(request("/healthz", null, DispatcherType.REQUEST)));
+   }
+
+   public void testPathUnderExactExcludedPathIsBound() throws Exception {
+      assertTrue(isBound(request("/status", "/details", DispatcherType.REQUEST)));
+   }
+
+   public void testNestedDispatchRestoresOuterBinding() throws Exception {
+      HttpServletRequest outerRequest = request("/app", null, DispatcherType.REQUEST);
+      HttpServletRequest includeRequest = request("/fragment", null, DispatcherType.INCLUDE);
+      AtomicReference<Object> objectBefore = new AtomicReference<>();
+      AtomicReference<Object> objectInclude = new AtomicReference<>();
+      AtomicReference<Object> objectAfter = new AtomicReference<>();
+
+      filter.doFilter(outerRequest, response, (chainRequest, chainResponse) -> {
+         objectBefore.set(module.getServletRequestScope().get(factory));
+         filter.doFilter(includeRequest, response, (includedRequest, includedResponse) ->
+               objectInclude.set(module.getServletRequestScope().get(factory)));
+         objectAfter.set(module.getServletRequestScope().get(factory));
+      });
+
+      assertNotSame(objectInclude.get(), objectBefore.get());
+      assertSame(objectAfter.get(), objectBefore.get());
+   }
+
+   public void testRequestScopedCloseableIsClosedAfterRequest() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+
+      filter.doFilter(request("/app", null, DispatcherType.REQUEST), response, (chainRequest, chainResponse) ->
+            module.getServletRequestScope().get(() -> closeable));
+
+      verify(closeable).close();
+   }
+
+   public void testRequestScopedCloseableIsNotClosedAfterNestedDispatch() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+
+      filter.doFilter(request("/fragment", null, DispatcherType.INCLUDE), response, (chainRequest, chainResponse) ->
+            module.getServletRequestScope().get(() -> closeable));
+
+      verify(closeable, never()).close();
+   }
+
+   public void testRequestScopedCloseableIsClosedWhenAsyncRequestCompletes() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      HttpServletRequest request = request("/app", null, DispatcherType.REQUEST);
+      AsyncContext asyncContext = mock(AsyncContext.class);
+      when(request.isAsyncStarted()).thenReturn(true);
+      when(request.getAsyncContext()).thenReturn(asyncContext);
+
+      filter.doFilter(request, response, (chainRequest, chainResponse) ->
+            module.getServletRequestScope().get(() -> closeable));
+      verify(closeable, never()).close();
+      ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+      verify(asyncContext).addListener(listener.capture());
+      listener.getValue().onComplete(new AsyncEvent(asyncContext));
+
+      verify(closeable).close();
+   }
+
+   public void testCloseFailureIsLoggedAndDoesNotFailRequest() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      doThrow(new Exception("close failed")).when(closeable).close();
+
+      filter.doFilter(request("/app", null, DispatcherType.REQUEST), response, (chainRequest, chainResponse) ->
+            module.getServletRequestScope().get(() -> closeable));
+
+      verify(context).log(anyString(), any(Throwable.class));
+   }
+
+   private boolean isBound(HttpServletRequest request) throws Exception {
+      AtomicReference<ServletRequest> chainRequest = new AtomicReference<>();
+      filter.doFilter(request, response, (boundRequest, boundResponse) -> chainRequest.set(boundRequest));
+      return chainRequest.get() != request;
+   }
+
+   private HttpServletRequest request(String servletPath, String pathInfo, DispatcherType dispatcherType) {
+      Map<String, Object> attributes = new HashMap<>();
+      HttpServletRequest request = mock(HttpServletRequest.class);
+      when(request.getServletPath()).thenReturn(servletPath);
+      when(request.getPathInfo()).thenReturn(pathInfo);
+      when(request.getDispatcherType()).thenReturn(dispatcherType);
+      when(request.getServletContext()).thenReturn(context);
+      when(request.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.getArguments()[0]));
+      doAnswer(invocation -> attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]))
+         .when(request).setAttribute(anyString(), any());
+      doAnswer(invocation -> attributes.remove(invocation.getArguments()[0]))
+         .when(request).removeAttribute(anyString());
+      return request;
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      context = mock(ServletContext.class);
+      response = mock(ServletResponse.class);
+      FilterRegistration.Dynamic registration = mock(FilterRegistration.Dynamic.class);
+      ArgumentCaptor<Filter> filterCaptor = ArgumentCaptor.forClass(Filter.class);
+      when(context.addFilter(anyString(), filterCaptor.capture())).thenReturn(registration);
+      module = new TestModule();
+      module.contextInitialized(new ServletContextEvent(context));
+      filter = filterCaptor.getValue();
+   }
+
+   public static class TestModule extends ServletModule {
+      @Override
+      protected Collection<String> getScopeExcludedPaths() {
+         return Arrays.asList("/health/*", "/status");
+      }
+
+      @Override
+      public void registerComponents(ServletContext context) {
+      }
+   }
+}
@@ -19,8 +19,10 @@
 package com.vanillasource.jaywire.spark;
 
 import com.vanillasource.jaywire.standalone.StandaloneModule;
+import com.vanillasource.jaywire.standalone.ConstructionProfiler;
 import com.vanillasource.jaywire.web.ServletRequestScopeModule;
 import com.vanillasource.jaywire.web.HttpSessionScopeModule;
+import com.vanillasource.jaywire.web.ScopePropagationModule;
 import com.vanillasource.jaywire.Scope;
 import spark.Spark;
 
@@ -30,17 +32,47 @@ import spark.Spark;
  * session scopes.
  */
 public abstract class SparkModule extends StandaloneModule
-      implements ServletRequestScopeModule, HttpSessionScopeModule {
+      implements ServletRequestScopeModule, HttpSessionScopeModule, ScopePropagationModule {
 
+   public SparkModule() {
+   }
+
+   /**
+    * Create the module with profiling of the singleton and thread local
+    * scopes enabled.
+    */
+   protected SparkModule(ConstructionProfiler constructionProfiler) {
+      super(constructionProfiler);
+   }
+
+   /**
+    * Add the filters that bind the request and session scopes. The session
+    * is only created when a session scoped object is first requested. The scopes
+    * are cleared and request scoped objects that are <code>AutoCloseable</code> are
+    * closed after all other filters, even if a route or filter failed. Failures
+    * to close are logged, and do not fail the request.
+    */
    public void addRoutes() {
       Spark.before((request, response) -> {
          getServletRequestScope().setStorage(request.raw());
-         getHttpSessionScope().setStorage(request.session(true).raw());
+         getHttpSessionScope().setLazyStorage(() -> request.raw().getSession(true));
       });
-      Spark.after((request, response) -> {
-         getServletRequestScope().clearStorage();
+      Spark.afterAfter((request, response) -> {
+         try {
+            getServletRequestScope().closeObjects(request.raw());
+         } catch (RuntimeException e) {
+            request.raw().getServletContext().log("could not close request scoped objects", e);
+         } finally {
+            getServletRequestScope().clearStorage();
             getHttpSessionScope().clearStorage();
+         }
       });
    }
-}
 
+   @Override
+   protected void createInfrastructure() {
+      super.createInfrastructure();
+      getServletRequestScope();
+      getHttpSessionScope();
+   }
+}
@@ -19,8 +19,10 @@
 package com.vanillasource.jaywire.wicket;
 
 import com.vanillasource.jaywire.standalone.StandaloneModule;
+import com.vanillasource.jaywire.standalone.ConstructionProfiler;
 import com.vanillasource.jaywire.web.ServletRequestScopeModule;
 import com.vanillasource.jaywire.web.HttpSessionScopeModule;
+import com.vanillasource.jaywire.web.ScopePropagationModule;
 import com.vanillasource.jaywire.Scope;
 import org.apache.wicket.Application;
 import org.apache.wicket.Session;
@@ -41,10 +43,21 @@ import java.util.Map;
 import java.util.HashMap;
 
 public abstract class WicketModule extends StandaloneModule
-      implements ServletRequestScopeModule, HttpSessionScopeModule {
+      implements ServletRequestScopeModule, HttpSessionScopeModule, ScopePropagationModule {
 
    private final Map<Class<?>, Function<PageParameters, ?>> pageFactories = new HashMap<>();
 
+   public WicketModule() {
+   }
+
+   /**
+    * Create the module with profiling of the singleton and thread local
+    * scopes enabled.
+    */
+   protected WicketModule(ConstructionProfiler constructionProfiler) {
+      super(constructionProfiler);
+   }
+
    /**
     * Call in the <code>init()</code> method of the
     * application to setup this module to work with
@@ -62,22 +75,23 @@ public abstract class WicketModule extends StandaloneModule
             if (requestCycle.getRequest() != null && requestCycle.getRequest() instanceof ServletWebRequest) {
                ServletRequest request = ((ServletWebRequest) requestCycle.getRequest()).getContainerRequest();
                getServletRequestScope().setStorage(request);
-               // Force creation of session
                if (request instanceof HttpServletRequest) {
-                  application.getSessionStore().getSessionId(requestCycle.getRequest(), true);
-                  Session session = application.fetchCreateAndSetSession(requestCycle);
-                  if (session == null) {
-                     throw new WicketRuntimeException("Could not create session, which is necessary for JayWire session scope.");
-                  }
-                  getHttpSessionScope().setStorage(((HttpServletRequest) request).getSession());
+                  HttpServletRequest httpRequest = (HttpServletRequest) request;
+                  getHttpSessionScope().setLazyStorage(() -> bindSession(application, requestCycle, httpRequest));
                }
             }
          }
 
          @Override
          public void onEndRequest(RequestCycle requestCycle) {
-            getHttpSessionScope().clearStorage();
-            getServletRequestScope().clearStorage();
+            try {
+               if (requestCycle.getRequest() instanceof ServletWebRequest) {
+                  closeRequestObjects(((ServletWebRequest) requestCycle.getRequest()).getContainerRequest());
+               }
+            } finally {
+               getHttpSessionScope().clearStorage();
+               getServletRequestScope().clearStorage();
+            }
          }
       });
       application.getApplicationListeners().add(new IApplicationListener() {
@@ -96,6 +110,26 @@ public abstract class WicketModule extends StandaloneModule
       });
    }
 
+   /**
+    * Create and bind the Wicket session if necessary, and return the
+    * underlying HTTP session. This is called only when a session scoped object is
+    * first requested in a request, so stateless pages and resources do not
+    * create sessions. If that happens outside the request's thread, only the
+    * HTTP session is created, and Wicket picks it up on a later request.
+    */
+   private HttpSession bindSession(Application application, RequestCycle requestCycle, HttpServletRequest request) {
+      if (RequestCycle.get() == requestCycle) {
+         Session session = application.fetchCreateAndSetSession(requestCycle);
+         if (session == null) {
+            throw new WicketRuntimeException("Could not create session, which is necessary for JayWire session scope.");
+         }
+         if (session.isTemporary()) {
+            session.bind();
+         }
+      }
+      return request.getSession(true);
+   }
+
    /**
     * Override this method to add bookmarkable pages with the <code>addPage()</code>
     * method.
@@ -153,5 +187,19 @@ public abstract class WicketModule extends StandaloneModule
          }
       };
    }
-}
 
+   private void closeRequestObjects(HttpServletRequest request) {
+      try {
+         getServletRequestScope().closeObjects(request);
+      } catch (RuntimeException e) {
+         request.getServletContext().log("could not close request scoped objects", e);
+      }
+   }
+
+   @Override
+   protected void createInfrastructure() {
+      super.createInfrastructure();
+      getServletRequestScope();
+      getHttpSessionScope();
+   }
+}
@@ -0,0 +1,41 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pull this interface into a Module to define a dependency to an
+ * asynchronous singleton scope.
+ */
+public interface AsyncSingletonScopeSupport {
+   /**
+    * Returns a scope that will instantiate only once for each given
+    * supplier class, but does so asynchronously.
+    */
+   AsyncScope getAsyncSingletonScope();
+
+   /**
+    * Convenience method to produce asynchronous singleton objects easily. Equals
+    * <code>getAsyncSingletonScope().getAsync(&lt;supplier&gt;)</code>.
+    */
+   default <T> CompletableFuture<T> asyncSingleton(Factory<T> factory) {
+      return getAsyncSingletonScope().getAsync(factory);
+   }
+}
@@ -0,0 +1,72 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire;
+
+import java.util.List;
+
+/**
+ * Helpers for closing objects owned by scopes and modules, so they are all
+ * closed the same way: in reverse order of creation, attempting all objects even if
+ * some fail, with all failures added as suppressed to a single exception.
+ */
+public final class Closeables {
+   private Closeables() {
+   }
+
+   /**
+    * Close the given objects in reverse order. All objects are attempted even
+    * if some fail.
+    * @return An exception with the given message and all failures added as suppressed,
+    * or <code>null</code> if all objects were closed.
+    */
+   public static RuntimeException closeInReverseOrder(List<? extends AutoCloseable> closeables, String message) {
+      RuntimeException failure = null;
+      for (int i = closeables.size() - 1; i >= 0; i--) {
+         try {
+            closeables.get(i).close();
+         } catch (Exception e) {
+            failure = addFailure(failure, message, e);
+         }
+      }
+      return failure;
+   }
+
+   /**
+    * Add a failure to close an object to the given exception, creating
+    * the exception with the given message if it is <code>null</code>.
+    * @return The exception the failure was added to.
+    */
+   public static RuntimeException addFailure(RuntimeException failure, String message, Exception closeFailure) {
+      if (failure == null) {
+         failure = new RuntimeException(message);
+      }
+      failure.addSuppressed(closeFailure);
+      return failure;
+   }
+
+   /**
+    * The default handler for failures to close objects, where the failure can
+    * not be thrown to the caller. Reports the failure to the uncaught exception
+    * handler of the current thread, without terminating it.
+    */
+   public static void reportUncaught(Exception e) {
+      Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+   }
+}
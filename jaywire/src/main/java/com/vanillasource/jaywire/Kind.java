@@ -0,0 +1,105 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An interned representation of a <i>kind</i>. Each distinct <i>kind</i> name
+ * is represented by exactly one instance, which has a small integer id.
+ * Scopes map ids to dense local indexes with a <code>KindIndex</code>, to index
+ * arrays instead of hashing the name. Instances can be compared by identity.<br>
+ * The <i>kind</i> of <code>Kinded</code> objects that do not override
+ * <code>getKind()</code> is resolved once per class, so subsequent
+ * lookups do not compute or hash the class name.
+ */
+public final class Kind {
+   private static final AtomicInteger NEXT_ID = new AtomicInteger();
+   private static final ConcurrentMap<String, Kind> KINDS = new ConcurrentHashMap<>();
+   private static final ClassValue<Optional<Kind>> CLASS_KINDS = new ClassValue<Optional<Kind>>() {
+      @Override
+      protected Optional<Kind> computeValue(Class<?> type) {
+         if (overridesKind(type)) {
+            return Optional.empty();
+         }
+         return Optional.of(named(type.getName()));
+      }
+   };
+
+   private final int id;
+   private final String name;
+
+   private Kind(int id, String name) {
+      this.id = id;
+      this.name = name;
+   }
+
+   /**
+    * Get the interned <i>kind</i> of the given object.
+    */
+   public static Kind of(Kinded kinded) {
+      Optional<Kind> kind = CLASS_KINDS.get(kinded.getClass());
+      if (kind.isPresent()) {
+         return kind.get();
+      }
+      return named(kinded.getKind());
+   }
+
+   /**
+    * Get the interned <i>kind</i> for the given name.
+    */
+   public static Kind named(String name) {
+      Kind kind = KINDS.get(name);
+      if (kind == null) {
+         kind = KINDS.computeIfAbsent(name, key -> new Kind(NEXT_ID.getAndIncrement(), key));
+      }
+      return kind;
+   }
+
+   private static boolean overridesKind(Class<?> type) {
+      try {
+         return type.getMethod("getKind").getDeclaringClass() != Kinded.class;
+      } catch (NoSuchMethodException e) {
+         return true;
+      }
+   }
+
+   /**
+    * A small non-negative number unique to this <i>kind</i> in this JVM.
+    * Ids are allocated sequentially, but are not stable across JVMs.
+    */
+   public int getId() {
+      return id;
+   }
+
+   /**
+    * The name of this <i>kind</i>, as returned by <code>Kinded.getKind()</code>.
+    */
+   public String getName() {
+      return name;
+   }
+
+   @Override
+   public String toString() {
+      return name;
+   }
+}
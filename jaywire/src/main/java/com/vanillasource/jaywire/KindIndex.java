@@ -0,0 +1,56 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire;
+
+import java.util.Arrays;
+
+/**
+ * Assigns dense, local indexes to the <i>kinds</i> used by a scope,
+ * so tables of that scope only need as many slots as the scope has kinds,
+ * regardless of how many kinds exist in the JVM. Lookups of already assigned
+ * kinds do not lock. This class is thread-safe.
+ */
+public final class KindIndex {
+   private volatile int[] indexesById = new int[0];
+   private int size = 0;
+
+   /**
+    * Get the index of the given <i>kind</i>, assigning the next
+    * free index if it has none yet.
+    */
+   public int indexOf(Kind kind) {
+      int id = kind.getId();
+      int[] currentIndexesById = indexesById;
+      if (id < currentIndexesById.length && currentIndexesById[id] != 0) {
+         return currentIndexesById[id] - 1;
+      }
+      return assign(kind);
+   }
+
+   private synchronized int assign(Kind kind) {
+      int id = kind.getId();
+      if (id < indexesById.length && indexesById[id] != 0) {
+         return indexesById[id] - 1;
+      }
+      int[] newIndexesById = Arrays.copyOf(indexesById, Math.max(id + 1, indexesById.length));
+      newIndexesById[id] = ++size;
+      indexesById = newIndexesById;
+      return size - 1;
+   }
+}
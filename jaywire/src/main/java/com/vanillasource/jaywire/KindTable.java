@@ -0,0 +1,67 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A table of objects indexed by the local index of their <i>kind</i> in
+ * a <code>KindIndex</code>, so it only has slots for the kinds used by
+ * the scope owning the index. Getting objects does not lock, storing them does.
+ * This class is thread-safe.
+ */
+public final class KindTable {
+   private final KindIndex kindIndex;
+   private volatile AtomicReferenceArray<Object> objects = new AtomicReferenceArray<>(4);
+
+   public KindTable(KindIndex kindIndex) {
+      this.kindIndex = kindIndex;
+   }
+
+   /**
+    * Get the object stored for the given <i>kind</i>, or <code>null</code>
+    * if there is none.
+    */
+   public Object get(Kind kind) {
+      int index = kindIndex.indexOf(kind);
+      AtomicReferenceArray<Object> currentObjects = objects;
+      if (index < currentObjects.length()) {
+         return currentObjects.get(index);
+      }
+      return null;
+   }
+
+   /**
+    * Store an object for the given <i>kind</i>, replacing any
+    * previously stored object.
+    */
+   public synchronized void put(Kind kind, Object object) {
+      int index = kindIndex.indexOf(kind);
+      AtomicReferenceArray<Object> currentObjects = objects;
+      if (index >= currentObjects.length()) {
+         AtomicReferenceArray<Object> newObjects = new AtomicReferenceArray<>(Math.max(index + 1, currentObjects.length() * 2));
+         for (int i = 0; i < currentObjects.length(); i++) {
+            newObjects.set(i, currentObjects.get(i));
+         }
+         currentObjects = newObjects;
+         objects = newObjects;
+      }
+      currentObjects.set(index, object);
+   }
+}
@@ -0,0 +1,60 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire;
+
+import java.util.function.Supplier;
+
+/**
+ * Pull this interface into a Module to define a dependency to
+ * singleton scopes which keep objects only as long as memory permits.
+ * Objects from these scopes should be held through the returned suppliers,
+ * not directly, otherwise they can not be reclaimed.
+ */
+public interface ReferenceScopeSupport {
+   /**
+    * Returns a scope that will instantiate only once for each given
+    * supplier class, but keeps instances through soft references. Instances
+    * are reclaimed if memory is low, and re-instantiated on the next request.
+    */
+   Scope getSoftReferenceScope();
+
+   /**
+    * Returns a scope that will instantiate only once for each given
+    * supplier class, but keeps instances through weak references. Instances
+    * are reclaimed as soon as they are not used anymore, and re-instantiated
+    * on the next request.
+    */
+   Scope getWeakReferenceScope();
+
+   /**
+    * Convenience method to produce soft singleton suppliers easily. Equals
+    * <code>getSoftReferenceScope().apply(&lt;supplier&gt;)</code>.
+    */
+   default <T> Supplier<T> softSingleton(Factory<T> factory) {
+      return getSoftReferenceScope().apply(factory);
+   }
+
+   /**
+    * Convenience method to produce weak singleton suppliers easily. Equals
+    * <code>getWeakReferenceScope().apply(&lt;supplier&gt;)</code>.
+    */
+   default <T> Supplier<T> weakSingleton(Factory<T> factory) {
+      return getWeakReferenceScope().apply(factory);
+   }
+}
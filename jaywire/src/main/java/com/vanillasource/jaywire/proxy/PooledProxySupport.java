@@ -0,0 +1,46 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.proxy;
+
+import com.vanillasource.jaywire.CloseableSupport;
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.SingletonScopeSupport;
+
+/**
+ * Adds support for pooled proxies to a module.
+ */
+public interface PooledProxySupport extends ProxySupport, SingletonScopeSupport, CloseableSupport {
+   /**
+    * Override this method to configure the pools of this module. By default
+    * a singleton pooled scope with default settings is used, which is closed
+    * with the module.
+    */
+   default PooledScope getPooledScope() {
+      return singleton(() -> closeWithModule(PooledScope.builder().build()));
+   }
+
+   /**
+    * Make a proxy that borrows an instance from a pool for each call, and returns
+    * it after the call. Use this for objects that are expensive to create, and
+    * are not thread-safe.
+    */
+   default <T> Proxy<T> pooledProxy(Factory<T> factory) {
+      return getPooledScope().proxy(factory);
+   }
+}
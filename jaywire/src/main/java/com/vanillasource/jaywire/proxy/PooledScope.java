@@ -0,0 +1,336 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.proxy;
+
+import com.vanillasource.jaywire.Closeables;
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Kind;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps a bounded pool of instances for each <i>kind</i>, and lends them out
+ * through proxies. Each call to a proxy borrows an instance exclusively for the duration
+ * of the call, and returns it to the pool afterwards. This is useful for objects that
+ * are expensive to create and not thread-safe. Failures to close evicted
+ * instances never fail a call, they are reported to a configurable handler.<br>
+ * Closing the scope closes all idle instances, and instances in use when they
+ * are returned. Pools can not be used after the scope is closed.<br>
+ * Note that this is not a <code>Scope</code>, since instances must be returned
+ * after usage, which is only possible through a <code>Proxy</code>.
+ * Use the <code>builder()</code> method to configure a new pooled scope.
+ */
+public class PooledScope implements AutoCloseable {
+   private final ConcurrentMap<Kind, Pool<?>> pools = new ConcurrentHashMap<>();
+   private final int minimumIdle;
+   private final int maximumSize;
+   private final long idleTimeoutNanos;
+   private final ExhaustedPolicy exhaustedPolicy;
+   private final LongSupplier ticker;
+   private final Consumer<? super Exception> closeFailureHandler;
+   private volatile boolean closed = false;
+
+   private PooledScope(Builder builder) {
+      this.minimumIdle = builder.minimumIdle;
+      this.maximumSize = builder.maximumSize;
+      this.idleTimeoutNanos = builder.idleTimeoutNanos;
+      this.exhaustedPolicy = builder.exhaustedPolicy;
+      this.ticker = builder.ticker;
+      this.closeFailureHandler = builder.closeFailureHandler;
+   }
+
+   public static Builder builder() {
+      return new Builder();
+   }
+
+   /**
+    * Get a proxy that borrows an instance from the pool of the given
+    * factory's <i>kind</i> for each call.
+    */
+   public <T> Proxy<T> proxy(Factory<T> factory) {
+      Pool<T> pool = getPool(factory);
+      return new Proxy<T>() {
+         @Override
+         public <R> R call(Function<T, R> body) {
+            T object = pool.borrow();
+            try {
+               return body.apply(object);
+            } finally {
+               pool.release(object);
+            }
+         }
+      };
+   }
+
+   /**
+    * Close all idle instances of all pools. Instances in use are closed when
+    * they are released. All instances are attempted even if some fail, the
+    * failures are thrown together at the end.
+    */
+   @Override
+   public void close() {
+      closed = true;
+      RuntimeException failure = null;
+      for (Pool<?> pool : pools.values()) {
+         try {
+            pool.close();
+         } catch (RuntimeException e) {
+            failure = Closeables.addFailure(failure, "could not close pooled objects", e);
+         }
+      }
+      if (failure != null) {
+         throw failure;
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private <T> Pool<T> getPool(Factory<T> factory) {
+      return (Pool<T>) pools.computeIfAbsent(Kind.of(factory), kind -> new Pool<>(factory));
+   }
+
+   /**
+    * Determines what happens when all instances of a pool are in use, and
+    * the pool reached its maximum size.
+    */
+   public enum ExhaustedPolicy {
+      /**
+       * Wait until an instance is returned to the pool.
+       */
+      BLOCK,
+      /**
+       * Create a new instance anyway, which is discarded after use.
+       */
+      GROW,
+      /**
+       * Throw an <code>IllegalStateException</code>.
+       */
+      FAIL
+   }
+
+   private final class Pool<T> {
+      private final Factory<T> factory;
+      private final Deque<IdleObject<T>> idleObjects = new ArrayDeque<>();
+      private int size = 0;
+
+      private Pool(Factory<T> factory) {
+         this.factory = factory;
+      }
+
+      private T borrow() {
+         closeAll(evictIdle());
+         synchronized (this) {
+            checkNotClosed();
+            while (idleObjects.isEmpty() && size >= maximumSize && exhaustedPolicy == ExhaustedPolicy.BLOCK) {
+               awaitRelease();
+               checkNotClosed();
+            }
+            if (!idleObjects.isEmpty()) {
+               return idleObjects.pop().object;
+            }
+            if (size >= maximumSize && exhaustedPolicy == ExhaustedPolicy.FAIL) {
+               throw new IllegalStateException("all "+size+" pooled objects of kind "+factory.getKind()+" are in use");
+            }
+            size++;
+         }
+         try {
+            return factory.get();
+         } catch (RuntimeException | Error e) {
+            synchronized (this) {
+               size--;
+               notifyAll();
+            }
+            throw e;
+         }
+      }
+
+      private void release(T object) {
+         List<T> evictedObjects = new ArrayList<>();
+         synchronized (this) {
+            if (size > maximumSize || closed) {
+               size--;
+               evictedObjects.add(object);
+            } else {
+               idleObjects.push(new IdleObject<>(object, ticker.getAsLong()));
+               notifyAll();
+            }
+         }
+         closeAll(evictedObjects);
+         closeAll(evictIdle());
+      }
+
+      private synchronized List<T> evictIdle() {
+         List<T> evictedObjects = new ArrayList<>();
+         long now = ticker.getAsLong();
+         while (idleObjects.size() > minimumIdle && now - idleObjects.peekLast().idleSinceNanos >= idleTimeoutNanos) {
+            evictedObjects.add(idleObjects.removeLast().object);
+            size--;
+         }
+         return evictedObjects;
+      }
+
+      private void checkNotClosed() {
+         if (closed) {
+            throw new IllegalStateException("pool of kind "+factory.getKind()+" is closed");
+         }
+      }
+
+      private void close() {
+         List<T> idle = new ArrayList<>();
+         synchronized (this) {
+            while (!idleObjects.isEmpty()) {
+               idle.add(idleObjects.pop().object);
+               size--;
+            }
+            notifyAll();
+         }
+         RuntimeException failure = null;
+         for (T object : idle) {
+            if (object instanceof AutoCloseable) {
+               try {
+                  ((AutoCloseable) object).close();
+               } catch (Exception e) {
+                  failure = Closeables.addFailure(failure, "could not close pooled objects of kind "+factory.getKind(), e);
+               }
+            }
+         }
+         if (failure != null) {
+            throw failure;
+         }
+      }
+
+      private void awaitRelease() {
+         try {
+            wait();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for pooled object of kind "+factory.getKind(), e);
+         }
+      }
+
+      /**
+       * Close all evicted objects. Failures are reported to the close failure
+       * handler instead of being thrown, so they never fail a borrow or a call.
+       */
+      private void closeAll(List<T> evictedObjects) {
+         for (T object : evictedObjects) {
+            if (object instanceof AutoCloseable) {
+               try {
+                  ((AutoCloseable) object).close();
+               } catch (Exception e) {
+                  closeFailureHandler.accept(e);
+               }
+            }
+         }
+      }
+   }
+
+   private static final class IdleObject<T> {
+      private final T object;
+      private final long idleSinceNanos;
+
+      private IdleObject(T object, long idleSinceNanos) {
+         this.object = object;
+         this.idleSinceNanos = idleSinceNanos;
+      }
+   }
+
+   /**
+    * Configures and creates a <code>PooledScope</code>. By default pools
+    * may grow up to the number of available processors, idle instances
+    * are never evicted, and callers wait if all instances are in use.
+    */
+   public static class Builder {
+      private int minimumIdle = 0;
+      private int maximumSize = Runtime.getRuntime().availableProcessors();
+      private long idleTimeoutNanos = Long.MAX_VALUE;
+      private ExhaustedPolicy exhaustedPolicy = ExhaustedPolicy.BLOCK;
+      private LongSupplier ticker = System::nanoTime;
+      private Consumer<? super Exception> closeFailureHandler = Closeables::reportUncaught;
+
+      private Builder() {
+      }
+
+      /**
+       * Never evict idle instances if there are at most this many
+       * idle instances in a pool.
+       */
+      public Builder withMinimumIdle(int minimumIdle) {
+         this.minimumIdle = minimumIdle;
+         return this;
+      }
+
+      /**
+       * The maximum number of instances of a pool, including
+       * instances in use.
+       */
+      public Builder withMaximumSize(int maximumSize) {
+         this.maximumSize = maximumSize;
+         return this;
+      }
+
+      /**
+       * Evict instances that were not used for the given time. Evicted instances
+       * are closed if they are <code>AutoCloseable</code>. Eviction is lazy, idle
+       * instances of a pool are only evicted when an instance of the same pool is
+       * borrowed or released, or when the scope is closed.
+       */
+      public Builder withIdleTimeout(Duration idleTimeout) {
+         this.idleTimeoutNanos = idleTimeout.toNanos();
+         return this;
+      }
+
+      /**
+       * Report failures to close instances evicted while the pool is in use to
+       * the given handler. Defaults to <code>Closeables.reportUncaught()</code>.
+       */
+      public Builder withCloseFailureHandler(Consumer<? super Exception> closeFailureHandler) {
+         this.closeFailureHandler = closeFailureHandler;
+         return this;
+      }
+
+      /**
+       * What to do if a pool is exhausted.
+       */
+      public Builder withExhaustedPolicy(ExhaustedPolicy exhaustedPolicy) {
+         this.exhaustedPolicy = exhaustedPolicy;
+         return this;
+      }
+
+      /**
+       * Measure the idle time of instances with the given nanosecond
+       * ticker. Defaults to <code>System.nanoTime()</code>.
+       */
+      public Builder withTicker(LongSupplier ticker) {
+         this.ticker = ticker;
+         return this;
+      }
+
+      public PooledScope build() {
+         return new PooledScope(this);
+      }
+   }
+}
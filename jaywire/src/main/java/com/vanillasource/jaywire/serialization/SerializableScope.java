@@ -35,8 +35,8 @@ import com.vanillasource.jaywire.Factory;
  * The delegate scope does not have to be serializable for this to work.
  */
 public class SerializableScope implements Scope {
-   private SerializableSupplier<Scope> indirectDelegateSupplier;
-   private Scope delegate;
+   final SerializableSupplier<Scope> indirectDelegateSupplier;
+   final Scope delegate;
 
    public SerializableScope(Scope delegate, SerializableSupplier<Scope> indirectDelegateSupplier) {
       this.indirectDelegateSupplier = indirectDelegateSupplier;
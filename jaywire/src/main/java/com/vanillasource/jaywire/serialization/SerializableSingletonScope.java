@@ -0,0 +1,60 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.serialization;
+
+import java.util.function.Supplier;
+import com.vanillasource.jaywire.Scope;
+import com.vanillasource.jaywire.Factory;
+
+/**
+ * A serializable scope for delegate scopes with singleton semantics. Because
+ * a singleton never changes once created, suppliers produced by this scope
+ * remember the instance after the first successful resolution, and do not
+ * consult the delegate scope again. The remembered instance is not
+ * serialized, so deserialized suppliers resolve it again through
+ * the indirectly referenced delegate.
+ */
+public class SerializableSingletonScope extends SerializableScope {
+   public SerializableSingletonScope(Scope delegate, SerializableSupplier<Scope> indirectDelegateSupplier) {
+      super(delegate, indirectDelegateSupplier);
+   }
+
+   @Override
+   public <T> Supplier<T> apply(Factory<T> factory) {
+      return new MemoizingSerializableSupplier<T>(delegate, indirectDelegateSupplier, factory);
+   }
+
+   public static class MemoizingSerializableSupplier<T> extends IndirectSerializableSupplier<T> {
+      private transient volatile T instance;
+
+      public MemoizingSerializableSupplier(Scope delegate, SerializableSupplier<Scope> indirectDelegateSupplier, Factory<T> factory) {
+         super(delegate, indirectDelegateSupplier, factory);
+      }
+
+      @Override
+      public T get() {
+         T result = instance;
+         if (result == null) {
+            result = super.get();
+            instance = result;
+         }
+         return result;
+      }
+   }
+}
@@ -0,0 +1,104 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import com.vanillasource.jaywire.AsyncScope;
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Kind;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * A singleton scope that constructs objects asynchronously on the given
+ * executor. All callers asking for the same <i>kind</i> depend on the same
+ * construction, so each object is constructed only once. If a construction
+ * fails, or the executor rejects it, the failed future is forgotten, so the
+ * next request will try to construct the object again.
+ */
+public class AsyncSingletonScope implements AsyncScope {
+   private final ConcurrentMap<Kind, CompletableFuture<Object>> futures = new ConcurrentHashMap<>();
+   private final Executor executor;
+
+   public AsyncSingletonScope(Executor executor) {
+      this.executor = executor;
+   }
+
+   /**
+    * Returns a future of the object. Each call returns a new future depending
+    * on the shared one, so completing or cancelling it does not affect
+    * other callers.
+    */
+   @Override
+   @SuppressWarnings("unchecked")
+   public <T> CompletableFuture<T> getAsync(Factory<T> factory) {
+      return (CompletableFuture<T>) sharedFuture(factory).thenApply(Function.identity());
+   }
+
+   private CompletableFuture<Object> sharedFuture(Factory<?> factory) {
+      Kind kind = Kind.of(factory);
+      CompletableFuture<Object> future = futures.get(kind);
+      if (future == null) {
+         CompletableFuture<Object> newFuture = new CompletableFuture<>();
+         future = futures.putIfAbsent(kind, newFuture);
+         if (future == null) {
+            future = newFuture;
+            try {
+               executor.execute(() -> construct(kind, factory, newFuture));
+            } catch (RuntimeException e) {
+               futures.remove(kind, newFuture);
+               newFuture.completeExceptionally(e);
+            }
+         }
+      }
+      return future;
+   }
+
+   private void construct(Kind kind, Factory<?> factory, CompletableFuture<Object> future) {
+      try {
+         future.complete(factory.get());
+      } catch (Throwable e) {
+         futures.remove(kind, future);
+         future.completeExceptionally(e);
+      }
+   }
+
+   /**
+    * Blocks until the object is constructed. Exceptions thrown by the
+    * factory are rethrown directly.
+    */
+   @Override
+   @SuppressWarnings("unchecked")
+   public <T> T get(Factory<T> factory) {
+      try {
+         return (T) sharedFuture(factory).join();
+      } catch (CompletionException e) {
+         if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+         }
+         if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+         }
+         throw e;
+      }
+   }
+}
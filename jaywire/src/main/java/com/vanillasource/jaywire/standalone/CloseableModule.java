@@ -21,7 +21,11 @@ package com.vanillasource.jaywire.standalone;
 import com.vanillasource.jaywire.Scope;
 import com.vanillasource.jaywire.CloseableSupport;
 import com.vanillasource.jaywire.SingletonScopeSupport;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
@@ -40,14 +44,44 @@ public interface CloseableModule extends CloseableSupport, SingletonScopeSupport
    }
 
    /**
-    * Tries to close all registered objects, but will abort at the first
-    * failure with the exception thrown from closeable.
+    * The maximum time to wait for a single registered object to close.
+    * Defaults to 30 seconds.
+    */
+   default Duration getCloseTimeout() {
+      return Duration.ofSeconds(30);
+   }
+
+   /**
+    * The maximum time to wait for all registered objects to close.
+    * Defaults to 2 minutes.
+    */
+   default Duration getTotalCloseTimeout() {
+      return Duration.ofMinutes(2);
+   }
+
+   /**
+    * The number of objects that may be closed at the same time. Defaults to 1,
+    * which closes objects strictly one after the other. The module does not know
+    * the dependencies between objects, so only increase this if objects
+    * registered later may be closed concurrently with objects registered before them.
+    */
+   default int getCloseParallelism() {
+      return 1;
+   }
+
+   /**
+    * Close all registered objects in reverse order of registration, so objects
+    * are closed before the objects they depend on. A close that takes longer
+    * than the close timeout is interrupted and abandoned, and objects that are not
+    * closed before the total timeout are skipped. If the closing thread is interrupted,
+    * the remaining objects are still closed, and the interruption is reported as a
+    * failure with the interrupt flag restored. All objects are attempted even if
+    * some fail, all failures are thrown together, see <code>Closeables</code>.
     */
    @Override
    default void close() throws Exception {
-      for (AutoCloseable closeable : getCloseables()) {
-         closeable.close();
-      }
+      List<AutoCloseable> closeables = new ArrayList<>(getCloseables());
+      Collections.reverse(closeables);
+      new ModuleCloser(getCloseParallelism(), getCloseTimeout(), getTotalCloseTimeout()).close(closeables);
    }
 }
-
@@ -0,0 +1,296 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Scope;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.LinkedHashSet;
+import java.util.Deque;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the construction of objects in profiled scopes. For each construction
+ * the wall time, the time spent constructing nested objects, and the constructing
+ * thread is recorded. Additionally all dependencies between <i>kind</i>s are recorded
+ * that are seen through calls to profiled scopes while another object is being
+ * constructed. The results can be exported as a simple JSON report, or
+ * in the Chrome trace event format, which can be loaded into
+ * <code>chrome://tracing</code> and similar tools.
+ */
+public class ConstructionProfiler {
+   private final long originNanos = System.nanoTime();
+   private final ThreadLocal<Deque<ActiveConstruction>> activeConstructions =
+      ThreadLocal.withInitial(() -> new ArrayDeque<>());
+   private final List<Construction> constructions = new ArrayList<>();
+   private final Set<Dependency> dependencies = new LinkedHashSet<>();
+
+   /**
+    * Wrap the given scope so all objects constructed through it are
+    * recorded by this profiler.
+    */
+   public Scope profile(Scope delegate) {
+      return new Scope() {
+         @Override
+         public <T> T get(Factory<T> factory) {
+            String kind = factory.getKind();
+            Deque<ActiveConstruction> stack = activeConstructions.get();
+            ActiveConstruction parent = stack.peek();
+            if (parent != null) {
+               recordDependency(new Dependency(parent.kind, kind));
+            }
+            return delegate.get(new ProfiledFactory<>(factory, kind));
+         }
+      };
+   }
+
+   /**
+    * Returns all constructions recorded so far, in the order they were finished.
+    */
+   public synchronized List<Construction> getConstructions() {
+      return new ArrayList<>(constructions);
+   }
+
+   /**
+    * Returns all dependencies recorded so far.
+    */
+   public synchronized Set<Dependency> getDependencies() {
+      return new LinkedHashSet<>(dependencies);
+   }
+
+   /**
+    * Returns all recorded constructions and dependencies as JSON.
+    */
+   public String toReport() {
+      StringBuilder report = new StringBuilder("{\"constructions\":[");
+      String separator = "";
+      for (Construction construction : getConstructions()) {
+         report.append(separator)
+            .append("{\"kind\":").append(quote(construction.getKind()))
+            .append(",\"thread\":").append(quote(construction.getThreadName()))
+            .append(",\"startMicros\":").append(construction.getStartMicros())
+            .append(",\"wallMicros\":").append(construction.getWallMicros())
+            .append(",\"childMicros\":").append(construction.getChildMicros())
+            .append(",\"selfMicros\":").append(construction.getSelfMicros())
+            .append("}");
+         separator = ",";
+      }
+      report.append("],\"dependencies\":[");
+      separator = "";
+      for (Dependency dependency : getDependencies()) {
+         report.append(separator)
+            .append("{\"parent\":").append(quote(dependency.getParentKind()))
+            .append(",\"child\":").append(quote(dependency.getChildKind()))
+            .append("}");
+         separator = ",";
+      }
+      return report.append("]}").toString();
+   }
+
+   /**
+    * Returns all recorded constructions as complete events in the
+    * Chrome trace event format.
+    */
+   public String toChromeTrace() {
+      StringBuilder trace = new StringBuilder("{\"traceEvents\":[");
+      String separator = "";
+      for (Construction construction : getConstructions()) {
+         trace.append(separator)
+            .append("{\"name\":").append(quote(construction.getKind()))
+            .append(",\"cat\":\"jaywire\",\"ph\":\"X\"")
+            .append(",\"ts\":").append(construction.getStartMicros())
+            .append(",\"dur\":").append(construction.getWallMicros())
+            .append(",\"pid\":1,\"tid\":").append(construction.getThreadId())
+            .append(",\"args\":{\"thread\":").append(quote(construction.getThreadName()))
+            .append(",\"selfMicros\":").append(construction.getSelfMicros())
+            .append("}}");
+         separator = ",";
+      }
+      return trace.append("],\"displayTimeUnit\":\"ms\"}").toString();
+   }
+
+   private synchronized void recordDependency(Dependency dependency) {
+      dependencies.add(dependency);
+   }
+
+   private synchronized void recordConstruction(Construction construction) {
+      constructions.add(construction);
+   }
+
+   private static String quote(String value) {
+      StringBuilder quoted = new StringBuilder("\"");
+      for (char c : value.toCharArray()) {
+         if (c == '"' || c == '\\') {
+            quoted.append('\\').append(c);
+         } else if (c < 0x20) {
+            quoted.append(String.format("\\u%04x", (int) c));
+         } else {
+            quoted.append(c);
+         }
+      }
+      return quoted.append('"').toString();
+   }
+
+   private static final class ActiveConstruction {
+      private final String kind;
+      private long childNanos = 0;
+
+      private ActiveConstruction(String kind) {
+         this.kind = kind;
+      }
+   }
+
+   private final class ProfiledFactory<T> implements Factory<T> {
+      private final Factory<T> delegate;
+      private final String kind;
+
+      private ProfiledFactory(Factory<T> delegate, String kind) {
+         this.delegate = delegate;
+         this.kind = kind;
+      }
+
+      @Override
+      public String getKind() {
+         return kind;
+      }
+
+      @Override
+      public T get() {
+         Deque<ActiveConstruction> stack = activeConstructions.get();
+         ActiveConstruction active = new ActiveConstruction(kind);
+         long startNanos = System.nanoTime();
+         stack.push(active);
+         try {
+            return delegate.get();
+         } finally {
+            stack.pop();
+            long wallNanos = System.nanoTime() - startNanos;
+            ActiveConstruction parent = stack.peek();
+            if (parent != null) {
+               parent.childNanos += wallNanos;
+            }
+            Thread thread = Thread.currentThread();
+            recordConstruction(new Construction(kind, thread.getName(), thread.getId(),
+                     startNanos - originNanos, wallNanos, active.childNanos));
+         }
+      }
+   }
+
+   /**
+    * A single recorded construction of an object.
+    */
+   public static final class Construction {
+      private final String kind;
+      private final String threadName;
+      private final long threadId;
+      private final long startNanos;
+      private final long wallNanos;
+      private final long childNanos;
+
+      private Construction(String kind, String threadName, long threadId,
+            long startNanos, long wallNanos, long childNanos) {
+         this.kind = kind;
+         this.threadName = threadName;
+         this.threadId = threadId;
+         this.startNanos = startNanos;
+         this.wallNanos = wallNanos;
+         this.childNanos = childNanos;
+      }
+
+      public String getKind() {
+         return kind;
+      }
+
+      public String getThreadName() {
+         return threadName;
+      }
+
+      public long getThreadId() {
+         return threadId;
+      }
+
+      /**
+       * Start of construction relative to the creation of the profiler.
+       */
+      public long getStartMicros() {
+         return TimeUnit.NANOSECONDS.toMicros(startNanos);
+      }
+
+      /**
+       * Complete time of construction, including nested constructions.
+       */
+      public long getWallMicros() {
+         return TimeUnit.NANOSECONDS.toMicros(wallNanos);
+      }
+
+      /**
+       * Time spent constructing other objects while constructing this one.
+       */
+      public long getChildMicros() {
+         return TimeUnit.NANOSECONDS.toMicros(childNanos);
+      }
+
+      /**
+       * Time spent constructing this object without nested constructions.
+       */
+      public long getSelfMicros() {
+         return TimeUnit.NANOSECONDS.toMicros(wallNanos - childNanos);
+      }
+   }
+
+   /**
+    * A dependency from a <i>kind</i> to another <i>kind</i>, which was
+    * requested while the former was being constructed.
+    */
+   public static final class Dependency {
+      private final String parentKind;
+      private final String childKind;
+
+      private Dependency(String parentKind, String childKind) {
+         this.parentKind = parentKind;
+         this.childKind = childKind;
+      }
+
+      public String getParentKind() {
+         return parentKind;
+      }
+
+      public String getChildKind() {
+         return childKind;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (!(o instanceof Dependency)) {
+            return false;
+         }
+         Dependency other = (Dependency) o;
+         return parentKind.equals(other.parentKind) && childKind.equals(other.childKind);
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hash(parentKind, childKind);
+      }
+   }
+}
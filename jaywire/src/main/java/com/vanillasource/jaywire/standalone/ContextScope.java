@@ -0,0 +1,148 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import com.vanillasource.jaywire.Closeables;
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Kind;
+import com.vanillasource.jaywire.KindIndex;
+import com.vanillasource.jaywire.KindTable;
+import com.vanillasource.jaywire.Scope;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A scope that instantiates objects only once for each <i>context</i>. A context
+ * is bound for the extent of a single call with <code>run()</code> or
+ * <code>call()</code>, and its objects are forgotten when the call returns.
+ * Objects that are <code>AutoCloseable</code> are closed in reverse order
+ * of creation at that point.
+ * Contexts may be nested, in which case the outer context is restored
+ * after the inner call.<br>
+ * Unlike the thread local scope, objects do not live as long as the
+ * thread, and no state is left behind on the thread after the call. This makes
+ * this scope the better choice for short-lived threads, like virtual threads,
+ * or for tasks running on pooled threads.
+ */
+public class ContextScope implements Scope {
+   private final KindIndex kindIndex = new KindIndex();
+   private final ThreadLocal<Context> contexts = new ThreadLocal<>();
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public <T> T get(Factory<T> factory) {
+      Context context = contexts.get();
+      if (context == null) {
+         throw new IllegalStateException("there was no context bound while trying to get scoped object");
+      }
+      Kind kind = Kind.of(factory);
+      T instance = (T) context.instances.get(kind);
+      if (instance == null) {
+         instance = factory.get();
+         context.add(kind, instance);
+      }
+      return instance;
+   }
+
+   /**
+    * Run the given body in a new context.
+    */
+   public void run(Runnable body) {
+      Context previousContext = contexts.get();
+      Context context = new Context(kindIndex);
+      contexts.set(context);
+      Throwable failure = null;
+      try {
+         body.run();
+      } catch (Throwable e) {
+         failure = e;
+         throw e;
+      } finally {
+         restore(previousContext);
+         context.close(failure);
+      }
+   }
+
+   /**
+    * Call the given body in a new context.
+    */
+   public <R> R call(Callable<R> body) throws Exception {
+      Context previousContext = contexts.get();
+      Context context = new Context(kindIndex);
+      contexts.set(context);
+      Throwable failure = null;
+      try {
+         return body.call();
+      } catch (Throwable e) {
+         failure = e;
+         throw e;
+      } finally {
+         restore(previousContext);
+         context.close(failure);
+      }
+   }
+
+   private void restore(Context previousContext) {
+      if (previousContext == null) {
+         contexts.remove();
+      } else {
+         contexts.set(previousContext);
+      }
+   }
+
+   private static final class Context {
+      private final KindTable instances;
+      private List<AutoCloseable> closeables;
+
+      private Context(KindIndex kindIndex) {
+         instances = new KindTable(kindIndex);
+      }
+
+      private void add(Kind kind, Object instance) {
+         instances.put(kind, instance);
+         if (instance instanceof AutoCloseable) {
+            if (closeables == null) {
+               closeables = new ArrayList<>();
+            }
+            closeables.add((AutoCloseable) instance);
+         }
+      }
+
+      /**
+       * Close all closeables, and attach failures to the given failure of
+       * the body if there was one, so that it is not masked.
+       */
+      private void close(Throwable bodyFailure) {
+         if (closeables == null) {
+            return;
+         }
+         RuntimeException failure = Closeables.closeInReverseOrder(closeables, "could not close context scoped objects");
+         if (failure == null) {
+            return;
+         }
+         if (bodyFailure == null) {
+            throw failure;
+         }
+         for (Throwable closeFailure : failure.getSuppressed()) {
+            bodyFailure.addSuppressed(closeFailure);
+         }
+      }
+   }
+}
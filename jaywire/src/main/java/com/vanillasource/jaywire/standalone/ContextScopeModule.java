@@ -0,0 +1,44 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.SingletonScopeSupport;
+import com.vanillasource.jaywire.serialization.SerializationSupport;
+import java.util.function.Supplier;
+
+/**
+ * Implements the context scope as a mixin to any singleton supporting module.
+ */
+public interface ContextScopeModule extends SingletonScopeSupport, SerializationSupport {
+   /**
+    * Provides a method to directly get the <code>ContextScope</code>,
+    * to be able to run code in new contexts.
+    */
+   default ContextScope getContextScope() {
+      return singleton( () -> new ContextScope() );
+   }
+
+   /**
+    * Convenience method to produce context scope suppliers easily.
+    */
+   default <T> Supplier<T> contextScoped(Factory<T> factory) {
+      return makeScopeSerializable( () -> getContextScope() ).apply(factory);
+   }
+}
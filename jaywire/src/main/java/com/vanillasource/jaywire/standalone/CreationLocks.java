@@ -0,0 +1,141 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Serializes the creation of objects for each key separately. While an object
+ * is being created for a key, other threads creating an object for the same key
+ * wait for it to finish. Creations may be nested in the same thread for other keys.
+ * Threads waiting for each other in a cycle are detected, and an
+ * <code>IllegalStateException</code> is thrown naming the keys involved
+ * instead of deadlocking.
+ */
+public final class CreationLocks<K> {
+   private final ConcurrentMap<K, Creation<K>> creations = new ConcurrentHashMap<>();
+   private final ConcurrentMap<Thread, Creation<K>> waits = new ConcurrentHashMap<>();
+
+   /**
+    * Get an object for the given key, creating it if necessary. The lookup
+    * function is called after the lock is acquired to check whether the object
+    * was created by another thread in the meantime, and after waiting for another
+    * thread to finish. The creator function is only called while the lock is held,
+    * and must store the created object so the lookup function can find it.
+    */
+   public <T> T create(K key, Supplier<T> lookup, Supplier<T> creator) {
+      Creation<K> creation = new Creation<>(key, Thread.currentThread());
+      while (true) {
+         Creation<K> existing = creations.putIfAbsent(key, creation);
+         if (existing == null) {
+            try {
+               T object = lookup.get();
+               if (object == null) {
+                  object = creator.get();
+               }
+               return object;
+            } finally {
+               creations.remove(key, creation);
+               creation.finish();
+            }
+         }
+         if (existing.owner == creation.owner) {
+            throw new IllegalStateException("object of kind "+key+" requires itself while being created");
+         }
+         awaitCreation(existing);
+         T object = lookup.get();
+         if (object != null) {
+            return object;
+         }
+      }
+   }
+
+   private void awaitCreation(Creation<K> creation) {
+      Thread current = Thread.currentThread();
+      waits.put(current, creation);
+      try {
+         checkNoCycle(current, creation);
+         creation.await();
+      } finally {
+         waits.remove(current);
+      }
+   }
+
+   private void checkNoCycle(Thread current, Creation<K> creation) {
+      List<K> keys = new ArrayList<>();
+      Set<Thread> visited = new HashSet<>();
+      Creation<K> awaited = creation;
+      while (awaited != null && visited.add(awaited.owner)) {
+         keys.add(awaited.key);
+         if (awaited.owner == current) {
+            throw new IllegalStateException("objects of kinds "+keys+" are being created in a cycle by multiple threads");
+         }
+         awaited = waits.get(awaited.owner);
+      }
+   }
+
+   /**
+    * Waiting blocks in a managed way, so threads of a <code>ForkJoinPool</code>
+    * waiting for a creation are compensated by the pool.
+    */
+   private static final class Creation<K> implements ForkJoinPool.ManagedBlocker {
+      private final K key;
+      private final Thread owner;
+      private boolean finished = false;
+
+      private Creation(K key, Thread owner) {
+         this.key = key;
+         this.owner = owner;
+      }
+
+      private synchronized void finish() {
+         finished = true;
+         notifyAll();
+      }
+
+      private void await() {
+         try {
+            ForkJoinPool.managedBlock(this);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for object of kind "+key, e);
+         }
+      }
+
+      @Override
+      public synchronized boolean block() throws InterruptedException {
+         while (!finished) {
+            wait();
+         }
+         return true;
+      }
+
+      @Override
+      public synchronized boolean isReleasable() {
+         return finished;
+      }
+   }
+}
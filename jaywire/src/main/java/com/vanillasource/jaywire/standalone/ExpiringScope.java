@@ -0,0 +1,294 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import com.vanillasource.jaywire.Closeables;
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Kind;
+import com.vanillasource.jaywire.Scope;
+import java.time.Duration;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A scope that keeps each <i>kind</i>'s instance only for a limited time. Instances
+ * can expire a fixed time after creation (time-to-live), and/or after not being
+ * used for some time (time-to-idle). Additionally the number of instances can
+ * be limited, in which case the least recently used instances are evicted first.
+ * Evicted and expired instances can be optionally closed, if they are
+ * <code>AutoCloseable</code>. Failures to close them never fail a lookup, they
+ * are reported to a configurable handler.<br>
+ * Valid instances are returned without locking. Only one thread creates a new instance
+ * for a <i>kind</i> at any time, just like in <code>SingletonScope</code>.<br>
+ * With refresh-ahead configured, an instance that is used shortly before its
+ * time-to-live ends is rebuilt asynchronously. Callers keep getting the old
+ * instance without blocking, until the new one replaces it.
+ * Use the <code>builder()</code> method to configure a new scope.
+ */
+public class ExpiringScope implements Scope {
+   private final ConcurrentMap<Kind, Entry> entries = new ConcurrentHashMap<>();
+   private final CreationLocks<Kind> creationLocks = new CreationLocks<>();
+   private final long timeToLiveNanos;
+   private final long timeToIdleNanos;
+   private final int maximumSize;
+   private final boolean closeEvicted;
+   private final LongSupplier ticker;
+   private final long refreshAheadNanos;
+   private final Executor refreshExecutor;
+   private final boolean trackAccess;
+   private final Consumer<? super Exception> closeFailureHandler;
+
+   private ExpiringScope(Builder builder) {
+      this.timeToLiveNanos = builder.timeToLiveNanos;
+      this.timeToIdleNanos = builder.timeToIdleNanos;
+      this.maximumSize = builder.maximumSize;
+      this.closeEvicted = builder.closeEvicted;
+      this.ticker = builder.ticker;
+      this.refreshAheadNanos = builder.refreshAheadNanos;
+      this.refreshExecutor = builder.refreshExecutor;
+      this.trackAccess = timeToIdleNanos != Long.MAX_VALUE || maximumSize != Integer.MAX_VALUE;
+      this.closeFailureHandler = builder.closeFailureHandler;
+   }
+
+   public static Builder builder() {
+      return new Builder();
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public <T> T get(Factory<T> factory) {
+      Kind kind = Kind.of(factory);
+      Entry entry = entries.get(kind);
+      if (entry != null) {
+         long now = ticker.getAsLong();
+         if (!isExpired(entry, now)) {
+            if (trackAccess) {
+               entry.accessedNanos = now;
+            }
+            if (shouldRefresh(entry, now)) {
+               startRefresh(kind, factory, entry);
+            }
+            return (T) entry.instance;
+         }
+      }
+      return creationLocks.create(kind, () -> (T) lookup(kind), () -> load(kind, factory));
+   }
+
+   private Object lookup(Kind kind) {
+      Entry entry = entries.get(kind);
+      if (entry == null || isExpired(entry, ticker.getAsLong())) {
+         return null;
+      }
+      return entry.instance;
+   }
+
+   private boolean shouldRefresh(Entry entry, long now) {
+      return refreshExecutor != null &&
+         now - entry.createdNanos >= timeToLiveNanos - refreshAheadNanos &&
+         entry.refreshing.compareAndSet(false, true);
+   }
+
+   /**
+    * Start refreshing the given entry. If the executor rejects the refresh,
+    * the failure is reported to the failure handler, and the entry can be
+    * refreshed again on a later lookup.
+    */
+   private void startRefresh(Kind kind, Factory<?> factory, Entry entry) {
+      try {
+         refreshExecutor.execute(() -> refresh(kind, factory, entry));
+      } catch (RuntimeException e) {
+         entry.refreshing.set(false);
+         closeFailureHandler.accept(e);
+      }
+   }
+
+   private void refresh(Kind kind, Factory<?> factory, Entry entry) {
+      try {
+         creationLocks.create(kind, () -> {
+            Entry currentEntry = entries.get(kind);
+            if (currentEntry != null && currentEntry != entry) {
+               return currentEntry.instance;
+            }
+            return null;
+         }, () -> load(kind, factory));
+      } catch (RuntimeException e) {
+         entry.refreshing.set(false);
+         throw e;
+      }
+   }
+
+   private boolean isExpired(Entry entry, long now) {
+      return now - entry.createdNanos >= timeToLiveNanos || now - entry.accessedNanos >= timeToIdleNanos;
+   }
+
+   private <T> T load(Kind kind, Factory<T> factory) {
+      T instance = factory.get();
+      if (instance != null) {
+         Entry oldEntry = entries.put(kind, new Entry(instance, ticker.getAsLong()));
+         List<Entry> evictedEntries = evictIfNecessary();
+         if (oldEntry != null) {
+            evictedEntries.add(oldEntry);
+         }
+         closeAll(evictedEntries);
+      }
+      return instance;
+   }
+
+   private synchronized List<Entry> evictIfNecessary() {
+      List<Entry> evictedEntries = new ArrayList<>();
+      while (entries.size() > maximumSize) {
+         Map.Entry<Kind, Entry> leastRecentlyUsed = null;
+         for (Map.Entry<Kind, Entry> entry : entries.entrySet()) {
+            if (leastRecentlyUsed == null ||
+                  entry.getValue().accessedNanos - leastRecentlyUsed.getValue().accessedNanos < 0) {
+               leastRecentlyUsed = entry;
+            }
+         }
+         if (leastRecentlyUsed != null && entries.remove(leastRecentlyUsed.getKey(), leastRecentlyUsed.getValue())) {
+            evictedEntries.add(leastRecentlyUsed.getValue());
+         }
+      }
+      return evictedEntries;
+   }
+
+   /**
+    * Close all evicted instances. Failures are reported to the close failure
+    * handler instead of being thrown, so they do not fail the lookup that
+    * caused the eviction.
+    */
+   private void closeAll(List<Entry> evictedEntries) {
+      if (!closeEvicted) {
+         return;
+      }
+      for (Entry entry : evictedEntries) {
+         if (entry.instance instanceof AutoCloseable) {
+            try {
+               ((AutoCloseable) entry.instance).close();
+            } catch (Exception e) {
+               closeFailureHandler.accept(e);
+            }
+         }
+      }
+   }
+
+   private static final class Entry {
+      private final Object instance;
+      private final long createdNanos;
+      private volatile long accessedNanos;
+      private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+      private Entry(Object instance, long createdNanos) {
+         this.instance = instance;
+         this.createdNanos = createdNanos;
+         this.accessedNanos = createdNanos;
+      }
+   }
+
+   /**
+    * Configures and creates an <code>ExpiringScope</code>. By default
+    * instances do not expire and the number of instances is not limited.
+    */
+   public static class Builder {
+      private long timeToLiveNanos = Long.MAX_VALUE;
+      private long timeToIdleNanos = Long.MAX_VALUE;
+      private int maximumSize = Integer.MAX_VALUE;
+      private boolean closeEvicted = false;
+      private LongSupplier ticker = System::nanoTime;
+      private long refreshAheadNanos = 0;
+      private Executor refreshExecutor = null;
+      private Consumer<? super Exception> closeFailureHandler = Closeables::reportUncaught;
+
+      private Builder() {
+      }
+
+      /**
+       * Expire instances the given time after they were created.
+       */
+      public Builder withTimeToLive(Duration timeToLive) {
+         this.timeToLiveNanos = timeToLive.toNanos();
+         return this;
+      }
+
+      /**
+       * Expire instances if they were not used for the given time.
+       */
+      public Builder withTimeToIdle(Duration timeToIdle) {
+         this.timeToIdleNanos = timeToIdle.toNanos();
+         return this;
+      }
+
+      /**
+       * Keep at most the given number of instances, evicting the least
+       * recently used ones first.
+       */
+      public Builder withMaximumSize(int maximumSize) {
+         this.maximumSize = maximumSize;
+         return this;
+      }
+
+      /**
+       * Close <code>AutoCloseable</code> instances when they are evicted,
+       * or replaced after they expired.
+       */
+      public Builder closingEvicted() {
+         this.closeEvicted = true;
+         return this;
+      }
+
+      /**
+       * Report failures to close evicted instances, and failures to start a
+       * refresh, to the given handler. Defaults to <code>Closeables.reportUncaught()</code>.
+       */
+      public Builder withCloseFailureHandler(Consumer<? super Exception> closeFailureHandler) {
+         this.closeFailureHandler = closeFailureHandler;
+         return this;
+      }
+
+      /**
+       * Rebuild instances asynchronously on the given executor, if they are used
+       * within the given time before their time-to-live ends. Has no effect
+       * without a time-to-live.
+       */
+      public Builder withRefreshAhead(Duration refreshAhead, Executor refreshExecutor) {
+         this.refreshAheadNanos = refreshAhead.toNanos();
+         this.refreshExecutor = refreshExecutor;
+         return this;
+      }
+
+      /**
+       * Use the given source of nanosecond precision time instead
+       * of <code>System.nanoTime()</code>.
+       */
+      public Builder withTicker(LongSupplier ticker) {
+         this.ticker = ticker;
+         return this;
+      }
+
+      public ExpiringScope build() {
+         return new ExpiringScope(this);
+      }
+   }
+}
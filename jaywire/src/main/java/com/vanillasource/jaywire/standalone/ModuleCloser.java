@@ -0,0 +1,135 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import com.vanillasource.jaywire.Closeables;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Closes a list of closeables in the given order, with a limited number of
+ * closes running at the same time, and timeouts for each close and for
+ * all of them together. Closes that time out are interrupted and abandoned.
+ * If the closing thread is interrupted, the interruption is recorded as a
+ * failure, the remaining closeables are still closed, and the interrupt
+ * flag is restored at the end. All failures are collected, and thrown
+ * together as suppressed exceptions of a single exception.
+ */
+final class ModuleCloser {
+   private final int parallelism;
+   private final long closeTimeoutNanos;
+   private final long totalTimeoutNanos;
+   private RuntimeException failure;
+   private boolean interrupted = false;
+
+   ModuleCloser(int parallelism, Duration closeTimeout, Duration totalTimeout) {
+      if (parallelism < 1) {
+         throw new IllegalArgumentException("close parallelism must be at least 1, was "+parallelism);
+      }
+      this.parallelism = parallelism;
+      this.closeTimeoutNanos = closeTimeout.toNanos();
+      this.totalTimeoutNanos = totalTimeout.toNanos();
+   }
+
+   void close(List<? extends AutoCloseable> closeables) throws Exception {
+      ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+         Thread thread = new Thread(runnable, "jaywire-module-close");
+         thread.setDaemon(true);
+         return thread;
+      });
+      long deadline = System.nanoTime() + totalTimeoutNanos;
+      Deque<Closing> closings = new ArrayDeque<>();
+      try {
+         for (AutoCloseable closeable : closeables) {
+            if (closings.size() >= parallelism) {
+               await(closings.removeFirst(), deadline);
+            }
+            if (System.nanoTime() - deadline >= 0) {
+               fail(new TimeoutException("module close timed out before closing "+closeable));
+            } else {
+               closings.addLast(new Closing(closeable, executor.submit(() -> {
+                  closeable.close();
+                  return null;
+               })));
+            }
+         }
+         while (!closings.isEmpty()) {
+            await(closings.removeFirst(), deadline);
+         }
+      } finally {
+         executor.shutdown();
+         if (interrupted) {
+            Thread.currentThread().interrupt();
+         }
+      }
+      if (failure != null) {
+         throw failure;
+      }
+   }
+
+   private void await(Closing closing, long deadline) {
+      while (true) {
+         long remainingNanos = Math.min(closing.startNanos + closeTimeoutNanos, deadline) - System.nanoTime();
+         try {
+            closing.future.get(Math.max(remainingNanos, 0), TimeUnit.NANOSECONDS);
+            return;
+         } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+               fail((Exception) cause);
+            } else {
+               fail(new RuntimeException("could not close: "+closing.closeable, cause));
+            }
+            return;
+         } catch (TimeoutException e) {
+            closing.future.cancel(true);
+            fail(new TimeoutException("closing timed out: "+closing.closeable));
+            return;
+         } catch (InterruptedException e) {
+            if (!interrupted) {
+               interrupted = true;
+               fail(e);
+            }
+         }
+      }
+   }
+
+   private void fail(Exception e) {
+      failure = Closeables.addFailure(failure, "could not close module", e);
+   }
+
+   private static final class Closing {
+      private final AutoCloseable closeable;
+      private final Future<?> future;
+      private final long startNanos = System.nanoTime();
+
+      private Closing(AutoCloseable closeable, Future<?> future) {
+         this.closeable = closeable;
+         this.future = future;
+      }
+   }
+}
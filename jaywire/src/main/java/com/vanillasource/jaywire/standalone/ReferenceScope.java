@@ -0,0 +1,91 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Kind;
+import com.vanillasource.jaywire.Scope;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A singleton scope that holds its objects only through references, so
+ * the garbage collector may reclaim them. Reclaimed objects are created again
+ * on the next request. Objects are returned without locking while they are
+ * still referenced, and only one thread creates an object for a <i>kind</i>
+ * at any time, just like in <code>SingletonScope</code>.
+ */
+public class ReferenceScope implements Scope {
+   private final ConcurrentMap<Kind, Reference<Object>> references = new ConcurrentHashMap<>();
+   private final CreationLocks<Kind> creationLocks = new CreationLocks<>();
+   private final Function<Object, Reference<Object>> referenceFactory;
+
+   /**
+    * Create a scope with a custom function to create references for
+    * objects.
+    */
+   public ReferenceScope(Function<Object, Reference<Object>> referenceFactory) {
+      this.referenceFactory = referenceFactory;
+   }
+
+   /**
+    * Create a scope holding objects through soft references, which are
+    * only cleared if the JVM is under memory pressure.
+    */
+   public static ReferenceScope soft() {
+      return new ReferenceScope(object -> new SoftReference<>(object));
+   }
+
+   /**
+    * Create a scope holding objects through weak references, which are
+    * cleared as soon as objects are not strongly referenced anymore.
+    */
+   public static ReferenceScope weak() {
+      return new ReferenceScope(object -> new WeakReference<>(object));
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public <T> T get(Factory<T> factory) {
+      Kind kind = Kind.of(factory);
+      T instance = (T) lookup(kind);
+      if (instance == null) {
+         instance = creationLocks.create(kind, () -> (T) lookup(kind), () -> {
+            T newInstance = factory.get();
+            if (newInstance != null) {
+               references.put(kind, referenceFactory.apply(newInstance));
+            }
+            return newInstance;
+         });
+      }
+      return instance;
+   }
+
+   private Object lookup(Kind kind) {
+      Reference<Object> reference = references.get(kind);
+      if (reference == null) {
+         return null;
+      }
+      return reference.get();
+   }
+}
@@ -20,7 +20,7 @@ package com.vanillasource.jaywire.standalone;
 
 import com.vanillasource.jaywire.Scope;
 import com.vanillasource.jaywire.serialization.SerializableModule;
-import com.vanillasource.jaywire.serialization.SerializableScope;
+import com.vanillasource.jaywire.serialization.SerializableSingletonScope;
 import com.vanillasource.jaywire.SingletonScopeSupport;
 
 /**
@@ -29,10 +29,72 @@ import com.vanillasource.jaywire.SingletonScopeSupport;
  * all other features can be implemented as a mixin.
  */
 public abstract class SerializableSingletonScopeModule extends SerializableModule implements SingletonScopeSupport {
+   private final ConstructionProfiler constructionProfiler;
+   private final SingletonScope singletons;
    private final Scope singletonScope;
 
    public SerializableSingletonScopeModule() {
-      singletonScope = new SerializableScope(new SingletonScope(), this::getSingletonScope);
+      this(null);
+   }
+
+   /**
+    * Create the module with profiling enabled. All constructions in the singleton
+    * scope, and in all other scopes passed through <code>profiled()</code>, will be
+    * recorded by the given profiler.
+    */
+   protected SerializableSingletonScopeModule(ConstructionProfiler constructionProfiler) {
+      this.constructionProfiler = constructionProfiler;
+      singletons = new SingletonScope();
+      singletonScope = new SerializableSingletonScope(profiled(singletons), this::getSingletonScope);
+   }
+
+   /**
+    * Freeze the singleton scope after all singletons are created. Lookups of
+    * existing singletons will be simple reads from an immutable table, while singletons
+    * not yet created are still created on demand.
+    */
+   public void freeze() {
+      freeze(SingletonScope.UnknownKindPolicy.FALLBACK);
+   }
+
+   /**
+    * Freeze the singleton scope after all singletons are created, with the given policy
+    * for singletons not yet created. The singletons the module itself needs, like
+    * scope implementations, are created before freezing, see
+    * <code>createInfrastructure()</code>. With <code>FAIL</code> all
+    * other singletons, including ones only needed on shutdown, must be created before
+    * this call.
+    */
+   public void freeze(SingletonScope.UnknownKindPolicy unknownKindPolicy) {
+      createInfrastructure();
+      singletons.freeze(unknownKindPolicy);
+   }
+
+   /**
+    * Create all singletons the module itself uses lazily, so they
+    * survive freezing. Override this method to create additional
+    * singletons, but call this method too.
+    */
+   protected void createInfrastructure() {
+   }
+
+   /**
+    * Returns the profiler this module was created with, or <code>null</code>
+    * if profiling is not enabled.
+    */
+   public ConstructionProfiler getConstructionProfiler() {
+      return constructionProfiler;
+   }
+
+   /**
+    * Wrap the given scope with the profiler of this module, if profiling
+    * is enabled.
+    */
+   protected Scope profiled(Scope scope) {
+      if (constructionProfiler == null) {
+         return scope;
+      }
+      return constructionProfiler.profile(scope);
    }
 
    @Override
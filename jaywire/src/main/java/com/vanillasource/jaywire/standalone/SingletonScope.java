@@ -19,29 +19,149 @@
 package com.vanillasource.jaywire.standalone;
 
 import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Kind;
 import com.vanillasource.jaywire.Scope;
-import java.util.Map;
-import java.util.HashMap;
+import java.util.function.Supplier;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * An implementation of a singleton scope that keeps all
- * already instantiated objects in an internal map indexed by
- * the <i>kind</i> object returned by the factory. This scope is thread-safe,
+ * already instantiated objects in an internal array indexed by
+ * the id of the <i>kind</i> of the factory. This scope is thread-safe,
  * and reentrant, which means during an initialization of a
- * single object other may also initialize as singleton scope.
+ * single object other may also initialize as singleton scope.<br>
+ * Already instantiated objects are returned without locking. Creation
+ * of a new object only locks the <i>kind</i> being created, so slow factories
+ * do not block the creation of unrelated objects. If two threads would wait
+ * on each other's objects to be created, an <code>IllegalStateException</code>
+ * is thrown naming the <i>kind</i>s involved instead of deadlocking.<br>
+ * When the set of singletons is complete, the scope can be <i>frozen</i>,
+ * after which known <i>kind</i>s are read from an immutable table.
  */
 public class SingletonScope implements Scope {
-   private Map<String, Object> instances = new HashMap<>();
+   private volatile AtomicReferenceArray<Object> instances = new AtomicReferenceArray<>(16);
+   private final CreationLocks<Kind> creationLocks = new CreationLocks<>();
+   private volatile FrozenInstances frozenInstances = null;
 
    @Override
    @SuppressWarnings("unchecked")
-   public synchronized <T> T get(Factory<T> factory) {
-      T instance = (T) instances.get(factory.getKind());
+   public <T> T get(Factory<T> factory) {
+      Kind kind = Kind.of(factory);
+      FrozenInstances frozen = frozenInstances;
+      if (frozen != null) {
+         T instance = (T) frozen.get(kind);
+         if (instance != null) {
+            return instance;
+         }
+      }
+      T instance = (T) lookup(kind);
       if (instance == null) {
-         instance = factory.get();
-         instances.put(factory.getKind(), instance);
+         instance = create(kind, factory);
       }
       return instance;
    }
-}
 
+   /**
+    * Copy all currently existing instances into an immutable table, which will be
+    * consulted first on all subsequent lookups. <i>Kind</i>s not yet instantiated
+    * are handled according to the given policy.
+    */
+   public synchronized void freeze(UnknownKindPolicy unknownKindPolicy) {
+      AtomicReferenceArray<Object> currentInstances = instances;
+      Object[] table = new Object[currentInstances.length()];
+      for (int i = 0; i < table.length; i++) {
+         table[i] = currentInstances.get(i);
+      }
+      frozenInstances = new FrozenInstances(table, unknownKindPolicy);
+   }
+
+   /**
+    * Returns a supplier that remembers the instance after the first
+    * successful resolution, and does not consult the scope after.
+    */
+   @Override
+   public <T> Supplier<T> apply(Factory<T> factory) {
+      return new Supplier<T>() {
+         private volatile T instance;
+
+         @Override
+         public T get() {
+            T result = instance;
+            if (result == null) {
+               result = SingletonScope.this.get(factory);
+               instance = result;
+            }
+            return result;
+         }
+      };
+   }
+
+   private Object lookup(Kind kind) {
+      AtomicReferenceArray<Object> currentInstances = instances;
+      if (kind.getId() < currentInstances.length()) {
+         return currentInstances.get(kind.getId());
+      }
+      return null;
+   }
+
+   private synchronized void store(Kind kind, Object instance) {
+      AtomicReferenceArray<Object> currentInstances = instances;
+      if (kind.getId() >= currentInstances.length()) {
+         AtomicReferenceArray<Object> newInstances = new AtomicReferenceArray<>(
+               Math.max(kind.getId() + 1, currentInstances.length() * 2));
+         for (int i = 0; i < currentInstances.length(); i++) {
+            newInstances.set(i, currentInstances.get(i));
+         }
+         instances = newInstances;
+         currentInstances = newInstances;
+      }
+      currentInstances.set(kind.getId(), instance);
+   }
+
+   @SuppressWarnings("unchecked")
+   private <T> T create(Kind kind, Factory<T> factory) {
+      FrozenInstances frozen = frozenInstances;
+      if (frozen != null && frozen.unknownKindPolicy == UnknownKindPolicy.FAIL) {
+         throw new IllegalStateException("singleton scope is frozen, can not create singleton of unknown kind "+kind);
+      }
+      return creationLocks.create(kind, () -> (T) lookup(kind), () -> {
+         T instance = factory.get();
+         if (instance != null) {
+            store(kind, instance);
+         }
+         return instance;
+      });
+   }
+
+   /**
+    * Determines what happens when a frozen scope is asked
+    * for an object of a <i>kind</i> it does not contain.
+    */
+   public enum UnknownKindPolicy {
+      /**
+       * Create and store the object as if the scope was not frozen.
+       */
+      FALLBACK,
+      /**
+       * Throw an <code>IllegalStateException</code>.
+       */
+      FAIL
+   }
+
+   private static final class FrozenInstances {
+      private final Object[] table;
+      private final UnknownKindPolicy unknownKindPolicy;
+
+      private FrozenInstances(Object[] table, UnknownKindPolicy unknownKindPolicy) {
+         this.table = table;
+         this.unknownKindPolicy = unknownKindPolicy;
+      }
+
+      private Object get(Kind kind) {
+         if (kind.getId() < table.length) {
+            return table[kind.getId()];
+         }
+         return null;
+      }
+   }
+}
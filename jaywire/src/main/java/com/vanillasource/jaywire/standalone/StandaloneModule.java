@@ -18,6 +18,7 @@
 
 package com.vanillasource.jaywire.standalone;
 
+import com.vanillasource.jaywire.Scope;
 import com.vanillasource.jaywire.serialization.SerializationModule;
 
 /**
@@ -27,6 +28,35 @@ import com.vanillasource.jaywire.serialization.SerializationModule;
  */
 public abstract class StandaloneModule
    extends SerializableSingletonScopeModule 
-   implements ThreadLocalScopeModule, CloseableModule, SerializationModule {
+   implements ThreadLocalScopeModule, AsyncSingletonScopeModule, ReferenceScopeModule, StripedScopeModule,
+      TaskScopeModule, CloseableModule, WarmUpModule, SerializationModule {
+
+   public StandaloneModule() {
+   }
+
+   /**
+    * Create the module with profiling of the singleton and thread local
+    * scopes enabled.
+    */
+   protected StandaloneModule(ConstructionProfiler constructionProfiler) {
+      super(constructionProfiler);
+   }
+
+   @Override
+   public Scope getThreadLocalScope() {
+      return makeScopeSerializableSingleton(() -> profiled(new ThreadLocalScope()));
+   }
+
+   @Override
+   protected void createInfrastructure() {
+      super.createInfrastructure();
+      getThreadLocalScope();
+      getAsyncSingletonScope();
+      getSoftReferenceScope();
+      getWeakReferenceScope();
+      getStripedScope();
+      getContextScope();
+      getCloseables();
+   }
 }
 
@@ -0,0 +1,105 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Kind;
+import com.vanillasource.jaywire.Scope;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A scope that keeps a fixed number of instances, <i>stripes</i>, for each
+ * <i>kind</i>, and spreads threads over them. Each thread always gets the same
+ * stripe, selected by the hash of its id. This is useful for thread-safe objects
+ * which suffer from contention if shared by all threads, like synchronized caches
+ * or counters. If a global view is needed, all stripes can be reduced
+ * into a single result.<br>
+ * All stripes of a <i>kind</i> are created together, only once, just like
+ * in <code>SingletonScope</code>. Existing stripes are returned without locking.
+ */
+public class StripedScope implements Scope {
+   private final ConcurrentMap<Kind, Object[]> stripes = new ConcurrentHashMap<>();
+   private final CreationLocks<Kind> creationLocks = new CreationLocks<>();
+   private final int stripeCount;
+
+   /**
+    * Create a scope with as many stripes as there are available processors.
+    */
+   public StripedScope() {
+      this(Runtime.getRuntime().availableProcessors());
+   }
+
+   public StripedScope(int stripeCount) {
+      if (stripeCount < 1) {
+         throw new IllegalArgumentException("stripe count must be positive, but was "+stripeCount);
+      }
+      this.stripeCount = stripeCount;
+   }
+
+   /**
+    * Get the stripe of the current thread.
+    */
+   @Override
+   @SuppressWarnings("unchecked")
+   public <T> T get(Factory<T> factory) {
+      return (T) getStripes(factory)[probe()];
+   }
+
+   /**
+    * Get all stripes of the given factory's <i>kind</i>.
+    */
+   @SuppressWarnings("unchecked")
+   public <T> List<T> getAll(Factory<T> factory) {
+      return Collections.unmodifiableList(Arrays.asList((T[]) getStripes(factory)));
+   }
+
+   /**
+    * Combine all stripes of the given factory's <i>kind</i> into a
+    * single result.
+    */
+   public <T, R> R reduce(Factory<T> factory, Function<? super List<T>, R> reducer) {
+      return reducer.apply(getAll(factory));
+   }
+
+   private Object[] getStripes(Factory<?> factory) {
+      Kind kind = Kind.of(factory);
+      Object[] kindStripes = stripes.get(kind);
+      if (kindStripes == null) {
+         kindStripes = creationLocks.create(kind, () -> stripes.get(kind), () -> {
+            Object[] newStripes = new Object[stripeCount];
+            for (int i = 0; i < stripeCount; i++) {
+               newStripes[i] = factory.get();
+            }
+            stripes.put(kind, newStripes);
+            return newStripes;
+         });
+      }
+      return kindStripes;
+   }
+
+   private int probe() {
+      long hash = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+      return (int) ((hash >>> 32) % stripeCount);
+   }
+}
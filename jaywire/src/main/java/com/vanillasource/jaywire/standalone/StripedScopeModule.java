@@ -0,0 +1,54 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.SingletonScopeSupport;
+import com.vanillasource.jaywire.serialization.SerializationSupport;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Implements the striped scope as a mixin to any singleton supporting module.
+ */
+public interface StripedScopeModule extends SingletonScopeSupport, SerializationSupport {
+   /**
+    * Provides a method to directly get the <code>StripedScope</code>. Override
+    * this method to change the number of stripes.
+    */
+   default StripedScope getStripedScope() {
+      return singleton( () -> new StripedScope() );
+   }
+
+   /**
+    * Convenience method to produce suppliers that return the current thread's
+    * stripe of an object.
+    */
+   default <T> Supplier<T> striped(Factory<T> factory) {
+      return makeScopeSerializable( () -> getStripedScope() ).apply(factory);
+   }
+
+   /**
+    * Combine all stripes of an object into a single result.
+    */
+   default <T, R> R reduceStriped(Factory<T> factory, Function<? super List<T>, R> reducer) {
+      return getStripedScope().reduce(factory, reducer);
+   }
+}
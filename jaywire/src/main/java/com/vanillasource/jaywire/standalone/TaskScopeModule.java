@@ -0,0 +1,45 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Provides executor decorators that run each task in a new context
+ * of the context scope. Objects obtained through <code>contextScoped()</code>
+ * in such a task are created fresh for the task, and closed when it finishes if
+ * they are <code>AutoCloseable</code>.
+ */
+public interface TaskScopeModule extends ContextScopeModule {
+   /**
+    * Decorate the given executor to run each task in a new context.
+    */
+   default Executor taskScopedExecutor(Executor executor) {
+      ContextScope contextScope = getContextScope();
+      return command -> executor.execute(() -> contextScope.run(command));
+   }
+
+   /**
+    * Decorate the given executor service to run each task in a new context.
+    */
+   default ExecutorService taskScopedExecutorService(ExecutorService executorService) {
+      return new TaskScopedExecutorService(executorService, getContextScope());
+   }
+}
@@ -0,0 +1,96 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An executor service that runs each submitted task in a new context of
+ * a <code>ContextScope</code> on the delegate executor service. Context scoped
+ * objects therefore never leak between tasks, even if the delegate pools its threads.
+ * Futures of submitted tasks complete only after the context was closed.
+ */
+public class TaskScopedExecutorService extends AbstractExecutorService {
+   private final ExecutorService delegate;
+   private final ContextScope contextScope;
+
+   public TaskScopedExecutorService(ExecutorService delegate, ContextScope contextScope) {
+      this.delegate = delegate;
+      this.contextScope = contextScope;
+   }
+
+   @Override
+   public void execute(Runnable command) {
+      if (command instanceof ContextTask) {
+         delegate.execute(command);
+      } else {
+         delegate.execute(() -> contextScope.run(command));
+      }
+   }
+
+   @Override
+   protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+      return new ContextTask<>(() -> contextScope.call(callable));
+   }
+
+   @Override
+   protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+      return new ContextTask<>(() -> {
+         contextScope.run(runnable);
+         return value;
+      });
+   }
+
+   @Override
+   public void shutdown() {
+      delegate.shutdown();
+   }
+
+   @Override
+   public List<Runnable> shutdownNow() {
+      return delegate.shutdownNow();
+   }
+
+   @Override
+   public boolean isShutdown() {
+      return delegate.isShutdown();
+   }
+
+   @Override
+   public boolean isTerminated() {
+      return delegate.isTerminated();
+   }
+
+   @Override
+   public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+   }
+
+   private static final class ContextTask<T> extends FutureTask<T> {
+      private ContextTask(Callable<T> callable) {
+         super(callable);
+      }
+   }
+}
@@ -19,19 +19,34 @@
 package com.vanillasource.jaywire.standalone;
 
 import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Kind;
+import com.vanillasource.jaywire.KindIndex;
+import com.vanillasource.jaywire.KindTable;
 import com.vanillasource.jaywire.Scope;
 
 /**
  * An implementation of a thread local scope that is basically
- * a singleton scope in a thread local variable. Scope is thread-safe.
+ * a singleton scope in a thread local variable. Since each table of
+ * instances is only accessed by its own thread, lookups do not lock. The tables
+ * only have slots for the kinds used in this scope.
+ * Scope is thread-safe.
  */
 public class ThreadLocalScope implements Scope {
-   private final ThreadLocal<SingletonScope> threadLocalSingletons =
-      ThreadLocal.withInitial(() -> new SingletonScope());
+   private final KindIndex kindIndex = new KindIndex();
+   private final ThreadLocal<KindTable> threadLocalInstances =
+      ThreadLocal.withInitial(() -> new KindTable(kindIndex));
 
    @Override
+   @SuppressWarnings("unchecked")
    public <T> T get(Factory<T> factory) {
-      return threadLocalSingletons.get().get(factory);
+      Kind kind = Kind.of(factory);
+      KindTable instances = threadLocalInstances.get();
+      T instance = (T) instances.get(kind);
+      if (instance == null) {
+         instance = factory.get();
+         instances.put(kind, instance);
+      }
+      return instance;
    }
 }
 
@@ -0,0 +1,84 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * Implements eager initialization of objects as a mixin to any module. Each
+ * given root is resolved as a separate task, so the roots are built in parallel.
+ * Dependencies of a root are built one after another in the task of that root,
+ * they are not discovered in advance. To build expensive dependencies in parallel,
+ * like database pools, caches or clients, pass their getters as separate roots,
+ * followed by the getters of the objects that use them.<br>
+ * Dependencies shared between roots are created only once: the singleton scope
+ * locks each <i>kind</i> while it is being created, so other roots needing it
+ * wait only for that single object.
+ */
+public interface WarmUpModule {
+   /**
+    * Resolve all given roots in parallel using a dedicated pool with a thread
+    * for each root, and wait until all of them are done.
+    * @throws IllegalStateException If any of the roots failed, with all failures
+    * added as suppressed exceptions.
+    */
+   default void warmUpInParallel(Supplier<?>... roots) {
+      ForkJoinPool pool = new ForkJoinPool(Math.max(1, roots.length));
+      try {
+         warmUpInParallel(pool, Arrays.asList(roots));
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   /**
+    * Resolve all given roots in parallel in the given pool, and wait
+    * until all of them are done. All roots are attempted, even if some of them fail.
+    * @throws IllegalStateException If any of the roots failed, with all failures
+    * added as suppressed exceptions.
+    */
+   default void warmUpInParallel(ForkJoinPool pool, Collection<? extends Supplier<?>> roots) {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>(roots.size());
+      for (Supplier<?> root : roots) {
+         tasks.add(pool.submit(() -> {
+            root.get();
+         }));
+      }
+      IllegalStateException failure = null;
+      for (ForkJoinTask<?> task : tasks) {
+         try {
+            task.join();
+         } catch (RuntimeException | Error e) {
+            if (failure == null) {
+               failure = new IllegalStateException("could not warm up all objects");
+            }
+            failure.addSuppressed(e);
+         }
+      }
+      if (failure != null) {
+         throw failure;
+      }
+   }
+}
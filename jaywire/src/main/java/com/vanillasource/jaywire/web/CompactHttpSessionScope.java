@@ -0,0 +1,105 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.web;
+
+import com.vanillasource.jaywire.Kind;
+import com.vanillasource.jaywire.KindIndex;
+import com.vanillasource.jaywire.KindTable;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A session scope that stores all objects of a session in a single session
+ * attribute, instead of one attribute for each kind. This reduces the number of
+ * attributes a container has to track, replicate or persist. Objects are looked
+ * up in memory without locking, in a table that only has slots for the kinds of
+ * this scope, and are serialized by kind name with the session.
+ * The attribute is set again each time a new object is added, so containers
+ * that only replicate changed attributes notice the change.
+ */
+public class CompactHttpSessionScope extends HttpSessionScope {
+   public static final String ATTRIBUTE_NAME = "com.vanillasource.jaywire.objects";
+   private static final Kind ATTRIBUTE_KIND = Kind.named(ATTRIBUTE_NAME);
+   private static final KindIndex KIND_INDEX = new KindIndex();
+
+   @Override
+   protected Object retrieve(HttpSession session, Kind kind) {
+      SessionObjects objects = (SessionObjects) session.getAttribute(ATTRIBUTE_NAME);
+      if (objects == null) {
+         return null;
+      }
+      return objects.get(kind);
+   }
+
+   @Override
+   protected void store(HttpSession session, Kind kind, Object object) {
+      SessionObjects objects = createOnce(session, ATTRIBUTE_KIND,
+            () -> (SessionObjects) session.getAttribute(ATTRIBUTE_NAME),
+            () -> {
+               SessionObjects newObjects = new SessionObjects();
+               session.setAttribute(ATTRIBUTE_NAME, newObjects);
+               return newObjects;
+            });
+      objects.put(kind, object);
+      session.setAttribute(ATTRIBUTE_NAME, objects);
+   }
+
+   /**
+    * Objects of a session by kind name, with a table by local kind index for
+    * lookups. The table is not serialized, it is rebuilt on first use after
+    * deserialization.
+    */
+   private static final class SessionObjects implements Serializable {
+      private static final long serialVersionUID = 1L;
+      private final Map<String, Object> objects = new HashMap<>();
+      private transient volatile KindTable table;
+
+      private Object get(Kind kind) {
+         KindTable currentTable = table;
+         if (currentTable == null) {
+            currentTable = rebuildTable();
+         }
+         return currentTable.get(kind);
+      }
+
+      private synchronized KindTable rebuildTable() {
+         if (table == null) {
+            KindTable newTable = new KindTable(KIND_INDEX);
+            for (Map.Entry<String, Object> entry : objects.entrySet()) {
+               newTable.put(Kind.named(entry.getKey()), entry.getValue());
+            }
+            table = newTable;
+         }
+         return table;
+      }
+
+      private synchronized void put(Kind kind, Object object) {
+         objects.put(kind.getName(), object);
+         rebuildTable().put(kind, object);
+      }
+
+      private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+         out.defaultWriteObject();
+      }
+   }
+}
@@ -0,0 +1,120 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.web;
+
+import com.vanillasource.jaywire.Kind;
+import javax.servlet.http.HttpSession;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A session scope that sets the attributes of objects used during a request
+ * again at the end of the request, if they are <i>dirty</i>. Containers that
+ * replicate only attributes that were set during a request will then also replicate
+ * objects that were modified in place, but not objects that did not change.
+ * Whether an object is dirty is decided by a pluggable predicate, which may
+ * for example ask the object itself whether it was modified.<br>
+ * The end of the request is when the storage is cleared. Nested structured
+ * bindings do not end the request, as they restore the previous binding
+ * instead of clearing it. Objects are tracked for each thread separately.
+ */
+public class DirtyTrackingHttpSessionScope extends HttpSessionScope {
+   private final ThreadLocal<Map<HttpSession, Map<Kind, Object>>> usedObjectsThreadLocal = new ThreadLocal<>();
+   private final Predicate<Object> dirtyCheck;
+
+   /**
+    * Create a scope that sets all used objects again at the end of requests.
+    */
+   public DirtyTrackingHttpSessionScope() {
+      this(object -> true);
+   }
+
+   /**
+    * Create a scope that sets used objects again at the end of requests, if
+    * the given predicate returns true for them.
+    */
+   public DirtyTrackingHttpSessionScope(Predicate<Object> dirtyCheck) {
+      this.dirtyCheck = dirtyCheck;
+   }
+
+   @Override
+   protected Object retrieve(HttpSession session, Kind kind) {
+      Object object = super.retrieve(session, kind);
+      if (object != null) {
+         Map<HttpSession, Map<Kind, Object>> usedObjects = usedObjectsThreadLocal.get();
+         if (usedObjects == null) {
+            usedObjects = new IdentityHashMap<>();
+            usedObjectsThreadLocal.set(usedObjects);
+         }
+         usedObjects.computeIfAbsent(session, key -> new HashMap<>()).put(kind, object);
+      }
+      return object;
+   }
+
+   /**
+    * Clears the storage and sets dirty objects again. All dirty objects are set
+    * even if some fail, the failures are thrown together at the end. Sessions that
+    * were invalidated during the request are skipped.
+    */
+   @Override
+   public void clearStorage() {
+      Map<HttpSession, Map<Kind, Object>> usedObjects = usedObjectsThreadLocal.get();
+      usedObjectsThreadLocal.remove();
+      super.clearStorage();
+      if (usedObjects != null) {
+         publish(usedObjects);
+      }
+   }
+
+   private void publish(Map<HttpSession, Map<Kind, Object>> usedObjects) {
+      RuntimeException failure = null;
+      for (Map.Entry<HttpSession, Map<Kind, Object>> sessionObjects : usedObjects.entrySet()) {
+         HttpSession session = sessionObjects.getKey();
+         for (Map.Entry<Kind, Object> entry : sessionObjects.getValue().entrySet()) {
+            try {
+               if (dirtyCheck.test(entry.getValue())) {
+                  store(session, entry.getKey(), entry.getValue());
+               }
+            } catch (RuntimeException e) {
+               if (e instanceof IllegalStateException && isInvalidated(session)) {
+                  break;
+               }
+               if (failure == null) {
+                  failure = new RuntimeException("could not set session scoped objects again");
+               }
+               failure.addSuppressed(e);
+            }
+         }
+      }
+      if (failure != null) {
+         throw failure;
+      }
+   }
+
+   private static boolean isInvalidated(HttpSession session) {
+      try {
+         session.getCreationTime();
+         return false;
+      } catch (IllegalStateException e) {
+         return true;
+      }
+   }
+}
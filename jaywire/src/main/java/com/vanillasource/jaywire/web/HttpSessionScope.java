@@ -18,14 +18,135 @@
 
 package com.vanillasource.jaywire.web;
 
+import com.vanillasource.jaywire.Closeables;
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Kind;
+import com.vanillasource.jaywire.standalone.CreationLocks;
 import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
+/**
+ * Stores objects as attributes of the HTTP session. Concurrent requests of the
+ * same session create each kind only once, creations are serialized for each
+ * session and kind separately. Objects that are <code>AutoCloseable</code> are
+ * closed in reverse order of creation when the session is invalidated or expires.
+ */
 public class HttpSessionScope extends ThreadLocalStorageScope<HttpSession> {
+   public static final String CLOSEABLES_ATTRIBUTE_NAME = "com.vanillasource.jaywire.closeables";
+   private static final Kind CLOSEABLES_KIND = Kind.named(CLOSEABLES_ATTRIBUTE_NAME);
+   private final CreationLocks<SessionKind> creationLocks = new CreationLocks<>();
+
    public HttpSessionScope() {
       super(
          (session, key) -> session.getAttribute(key),
          (session, key, object) -> session.setAttribute(key, object)
       );
    }
-}
 
+   @Override
+   @SuppressWarnings("unchecked")
+   protected <T> T getOrCreate(HttpSession session, Kind kind, Factory<T> factory) {
+      T object = (T) retrieve(session, kind);
+      if (object == null) {
+         object = createOnce(session, kind,
+               () -> (T) retrieve(session, kind),
+               () -> create(session, kind, factory));
+      }
+      return object;
+   }
+
+   @Override
+   protected <T> T create(HttpSession session, Kind kind, Factory<T> factory) {
+      T object = super.create(session, kind, factory);
+      if (object instanceof AutoCloseable) {
+         SessionCloseables closeables = createOnce(session, CLOSEABLES_KIND,
+               () -> (SessionCloseables) session.getAttribute(CLOSEABLES_ATTRIBUTE_NAME),
+               () -> {
+                  SessionCloseables newCloseables = new SessionCloseables();
+                  session.setAttribute(CLOSEABLES_ATTRIBUTE_NAME, newCloseables);
+                  return newCloseables;
+               });
+         closeables.add((AutoCloseable) object);
+      }
+      return object;
+   }
+
+   /**
+    * Create something only once for the given session and kind. See
+    * <code>CreationLocks</code> for the semantics of the lookup and creator.
+    */
+   protected <T> T createOnce(HttpSession session, Kind kind, Supplier<T> lookup, Supplier<T> creator) {
+      return creationLocks.create(new SessionKind(session.getId(), kind), lookup, creator);
+   }
+
+   /**
+    * Closes the session scoped closeables when the session is invalidated or
+    * expires. Only closeables created in this JVM are closed, closeables of
+    * sessions that were deserialized from elsewhere are not known.
+    */
+   private static final class SessionCloseables implements HttpSessionBindingListener, Serializable {
+      private static final long serialVersionUID = 1L;
+      private transient List<AutoCloseable> closeables = new ArrayList<>();
+
+      private synchronized void add(AutoCloseable closeable) {
+         if (closeables == null) {
+            closeables = new ArrayList<>();
+         }
+         closeables.add(closeable);
+      }
+
+      @Override
+      public void valueBound(HttpSessionBindingEvent event) {
+      }
+
+      @Override
+      public void valueUnbound(HttpSessionBindingEvent event) {
+         List<AutoCloseable> unboundCloseables;
+         synchronized (this) {
+            unboundCloseables = closeables;
+            closeables = null;
+         }
+         if (unboundCloseables == null) {
+            return;
+         }
+         RuntimeException failure = Closeables.closeInReverseOrder(unboundCloseables, "could not close session scoped objects");
+         if (failure != null) {
+            event.getSession().getServletContext().log(failure.getMessage(), failure);
+         }
+      }
+   }
+
+   private static final class SessionKind {
+      private final String sessionId;
+      private final Kind kind;
+
+      private SessionKind(String sessionId, Kind kind) {
+         this.sessionId = sessionId;
+         this.kind = kind;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (!(o instanceof SessionKind)) {
+            return false;
+         }
+         SessionKind other = (SessionKind) o;
+         return sessionId.equals(other.sessionId) && kind == other.kind;
+      }
+
+      @Override
+      public int hashCode() {
+         return 31 * sessionId.hashCode() + kind.hashCode();
+      }
+
+      @Override
+      public String toString() {
+         return kind.getName();
+      }
+   }
+}
@@ -25,7 +25,10 @@ import com.vanillasource.jaywire.Scope;
 public interface HttpSessionScopeModule extends SessionScopeSupport, SerializationSupport, SingletonScopeSupport {
    /**
     * Provides a method to directly get the <code>HttpSessionScope</code>,
-    * to be able to set and clear its session.
+    * to be able to set and clear its session. Override to return a
+    * <code>CompactHttpSessionScope</code> to store all objects of a session in a
+    * single attribute, or a <code>DirtyTrackingHttpSessionScope</code> to set
+    * modified objects again at the end of requests.
     */
    default HttpSessionScope getHttpSessionScope() {
       return singleton( () -> new HttpSessionScope() );
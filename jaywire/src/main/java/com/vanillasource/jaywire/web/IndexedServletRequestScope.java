@@ -0,0 +1,83 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.web;
+
+import com.vanillasource.jaywire.Kind;
+import com.vanillasource.jaywire.KindIndex;
+import com.vanillasource.jaywire.KindTable;
+import javax.servlet.ServletRequest;
+
+/**
+ * A request scope that stores objects in a small table, instead of the
+ * attributes of the request. The table only has slots for kinds that are
+ * request scoped, and is itself stored in a single request attribute, so
+ * asynchronous dispatches and propagated tasks see the same objects. It is
+ * bound to the thread together with the request, so lookups do not touch the
+ * attributes of the request at all, and do not lock.<br>
+ * Objects can be optionally mirrored into request attributes, for
+ * components that expect to find them there.
+ */
+public class IndexedServletRequestScope extends ServletRequestScope {
+   public static final String ATTRIBUTE_NAME = "com.vanillasource.jaywire.objects";
+   private static final KindIndex KIND_INDEX = new KindIndex();
+   private final ThreadLocal<KindTable> tableThreadLocal = new ThreadLocal<>();
+   private final boolean mirrorAttributes;
+
+   public IndexedServletRequestScope() {
+      this(false);
+   }
+
+   /**
+    * @param mirrorAttributes Whether to set each object as request attribute also,
+    * named by its kind.
+    */
+   public IndexedServletRequestScope(boolean mirrorAttributes) {
+      this.mirrorAttributes = mirrorAttributes;
+   }
+
+   @Override
+   public void setStorage(ServletRequest request) {
+      KindTable table = (KindTable) request.getAttribute(ATTRIBUTE_NAME);
+      if (table == null) {
+         table = new KindTable(KIND_INDEX);
+         request.setAttribute(ATTRIBUTE_NAME, table);
+      }
+      tableThreadLocal.set(table);
+      super.setStorage(request);
+   }
+
+   @Override
+   public void clearStorage() {
+      tableThreadLocal.remove();
+      super.clearStorage();
+   }
+
+   @Override
+   protected Object retrieve(ServletRequest request, Kind kind) {
+      return tableThreadLocal.get().get(kind);
+   }
+
+   @Override
+   protected void store(ServletRequest request, Kind kind, Object object) {
+      tableThreadLocal.get().put(kind, object);
+      if (mirrorAttributes) {
+         super.store(request, kind, object);
+      }
+   }
+}
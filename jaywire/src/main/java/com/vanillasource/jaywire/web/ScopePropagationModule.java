@@ -0,0 +1,53 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.web;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Provides wrappers to hand work to other threads while keeping the
+ * request and session scope of the current thread. Pass the wrapped executors
+ * also to <code>CompletableFuture</code> stages, like
+ * <code>supplyAsync(supplier, propagating(executor))</code>.
+ */
+public interface ScopePropagationModule extends ServletRequestScopeModule, HttpSessionScopeModule {
+   /**
+    * Wrap the given task to run with the current request and session.
+    */
+   default Runnable propagateScopes(Runnable task) {
+      return getHttpSessionScope().propagate(getServletRequestScope().propagate(task));
+   }
+
+   /**
+    * Decorate the given executor to run all tasks with the request and session
+    * current at the time of submitting the task.
+    */
+   default Executor propagating(Executor executor) {
+      return task -> executor.execute(propagateScopes(task));
+   }
+
+   /**
+    * Decorate the given executor service to run all tasks with the request and
+    * session current at the time of submitting the task.
+    */
+   default ExecutorService propagating(ExecutorService executorService) {
+      return new PropagatingExecutorService(executorService, this::propagateScopes);
+   }
+}
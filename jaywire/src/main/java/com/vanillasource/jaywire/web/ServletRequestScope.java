@@ -18,14 +18,75 @@
 
 package com.vanillasource.jaywire.web;
 
+import com.vanillasource.jaywire.Closeables;
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Kind;
 import javax.servlet.ServletRequest;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Stores objects as attributes of the servlet request. Objects that are
+ * <code>AutoCloseable</code> are remembered, and can be closed at the end of the
+ * request with <code>closeObjects()</code>.
+ */
 public class ServletRequestScope extends ThreadLocalStorageScope<ServletRequest> {
+   public static final String CLOSEABLES_ATTRIBUTE_NAME = "com.vanillasource.jaywire.closeables";
+
    public ServletRequestScope() {
       super(
          (request, key) -> request.getAttribute(key),
          (request, key, object) -> request.setAttribute(key, object)
       );
    }
-}
 
+   @Override
+   protected <T> T create(ServletRequest request, Kind kind, Factory<T> factory) {
+      T object = super.create(request, kind, factory);
+      if (object instanceof AutoCloseable) {
+         List<AutoCloseable> closeables = requestCloseables(request);
+         synchronized (closeables) {
+            closeables.add((AutoCloseable) object);
+         }
+      }
+      return object;
+   }
+
+   @SuppressWarnings("unchecked")
+   private List<AutoCloseable> requestCloseables(ServletRequest request) {
+      List<AutoCloseable> closeables = (List<AutoCloseable>) request.getAttribute(CLOSEABLES_ATTRIBUTE_NAME);
+      if (closeables == null) {
+         synchronized (this) {
+            closeables = (List<AutoCloseable>) request.getAttribute(CLOSEABLES_ATTRIBUTE_NAME);
+            if (closeables == null) {
+               closeables = new ArrayList<>();
+               request.setAttribute(CLOSEABLES_ATTRIBUTE_NAME, closeables);
+            }
+         }
+      }
+      return closeables;
+   }
+
+   /**
+    * Close all request scoped objects of the given request that are
+    * <code>AutoCloseable</code>, in reverse order of creation. All objects
+    * are closed even if some fail, the failures are thrown together at the end.
+    */
+   @SuppressWarnings("unchecked")
+   public void closeObjects(ServletRequest request) {
+      List<AutoCloseable> closeables = (List<AutoCloseable>) request.getAttribute(CLOSEABLES_ATTRIBUTE_NAME);
+      if (closeables == null) {
+         return;
+      }
+      request.removeAttribute(CLOSEABLES_ATTRIBUTE_NAME);
+      List<AutoCloseable> closedCloseables;
+      synchronized (closeables) {
+         closedCloseables = new ArrayList<>(closeables);
+         closeables.clear();
+      }
+      RuntimeException failure = Closeables.closeInReverseOrder(closedCloseables, "could not close request scoped objects");
+      if (failure != null) {
+         throw failure;
+      }
+   }
+}
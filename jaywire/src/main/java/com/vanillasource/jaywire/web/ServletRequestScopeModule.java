@@ -25,7 +25,9 @@ import com.vanillasource.jaywire.Scope;
 public interface ServletRequestScopeModule extends RequestScopeSupport, SingletonScopeSupport, SerializationSupport {
    /**
     * Provides a method to directly get the <code>ServletRequestScope</code>,
-    * to be able to set and clear its request.
+    * to be able to set and clear its request. Override to return an
+    * <code>IndexedServletRequestScope</code> to not store objects as
+    * request attributes.
     */
    default ServletRequestScope getServletRequestScope() {
       return singleton( () -> new ServletRequestScope() );
@@ -20,15 +20,23 @@ package com.vanillasource.jaywire.web;
 
 import com.vanillasource.jaywire.Scope;
 import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Kind;
 import javax.servlet.http.HttpSession;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.concurrent.Callable;
 
 /**
  * An scope that stores all kinds in a "storage" object
- * that is kept as a thread-local variable.
+ * that is kept as a thread-local variable. The storage can be either set and
+ * cleared explicitly, or bound only for the extent of a single call with
+ * <code>runWithStorage()</code> or <code>callWithStorage()</code>. The
+ * latter restores the previous binding afterwards, and leaves no thread-local
+ * entry behind, which makes it suitable for short-lived threads, like virtual threads.
  */
 public class ThreadLocalStorageScope<S> implements Scope {
    private ThreadLocal<S> storageThreadLocal = new ThreadLocal<>();
+   private ThreadLocal<Supplier<? extends S>> lazyStorageThreadLocal = new ThreadLocal<>();
    private BiFunction<S, String, Object> retrievalFunction;
    private TriConsumer<S, String, Object> storageFunction;
 
@@ -39,26 +47,172 @@ public class ThreadLocalStorageScope<S> implements Scope {
    }
 
    @Override
-   @SuppressWarnings("unchecked")
    public <T> T get(Factory<T> factory) {
-      S storage = storageThreadLocal.get();
+      S storage = currentStorage();
       if (storage == null) {
          throw new IllegalStateException("there was no storage object while trying to get scoped object");
       }
-      T object = (T) retrievalFunction.apply(storage, factory.getKind());
+      return getOrCreate(storage, Kind.of(factory), factory);
+   }
+
+   /**
+    * Get the object of the given kind from the storage, or create and
+    * store it if it is not yet there. Override to change how creation is synchronized.
+    */
+   @SuppressWarnings("unchecked")
+   protected <T> T getOrCreate(S storage, Kind kind, Factory<T> factory) {
+      T object = (T) retrieve(storage, kind);
       if (object == null) {
-         object = factory.get();
-         storageFunction.accept(storage, factory.getKind(), object);
+         object = create(storage, kind, factory);
       }
       return object;
    }
 
+   /**
+    * Create a new object of the given kind and store it.
+    */
+   protected <T> T create(S storage, Kind kind, Factory<T> factory) {
+      T object = factory.get();
+      store(storage, kind, object);
+      return object;
+   }
+
+   protected Object retrieve(S storage, Kind kind) {
+      return retrievalFunction.apply(storage, kind.getName());
+   }
+
+   protected void store(S storage, Kind kind, Object object) {
+      storageFunction.accept(storage, kind.getName(), object);
+   }
+
+   private S currentStorage() {
+      S storage = storageThreadLocal.get();
+      if (storage == null) {
+         Supplier<? extends S> lazyStorage = lazyStorageThreadLocal.get();
+         if (lazyStorage != null) {
+            storage = lazyStorage.get();
+            setStorage(storage);
+         }
+      }
+      return storage;
+   }
+
    public void setStorage(S storage) {
       storageThreadLocal.set(storage);
    }
 
+   /**
+    * Bind a supplier of the storage instead of the storage itself. The supplier
+    * is only called when a scoped object is first requested, so storages that are
+    * costly to create, like sessions, are not created needlessly. The supplier
+    * may be called on multiple threads if the binding is propagated, so it should
+    * return the same storage each time.
+    */
+   public void setLazyStorage(Supplier<? extends S> lazyStorage) {
+      storageThreadLocal.remove();
+      lazyStorageThreadLocal.set(lazyStorage);
+   }
+
    public void clearStorage() {
-      storageThreadLocal.set(null);
+      storageThreadLocal.remove();
+      lazyStorageThreadLocal.remove();
+   }
+
+   /**
+    * Run the given body with the given storage bound to the current thread,
+    * and restore the previous storage afterwards.
+    */
+   public void runWithStorage(S storage, Runnable body) {
+      runWithBinding(storage, null, body);
+   }
+
+   /**
+    * Call the given body with the given storage bound to the current thread,
+    * and restore the previous storage afterwards.
+    */
+   public <R> R callWithStorage(S storage, Callable<R> body) throws Exception {
+      return callWithBinding(storage, null, body);
+   }
+
+   /**
+    * Call the given body with the given storage supplier bound lazily to the
+    * current thread, and restore the previous storage afterwards.
+    */
+   public <R> R callWithLazyStorage(Supplier<? extends S> lazyStorage, Callable<R> body) throws Exception {
+      return callWithBinding(null, lazyStorage, body);
+   }
+
+   /**
+    * Wrap the given task, so that it runs with the storage that is bound to the
+    * current thread at the time of this call. Use this to hand work to other
+    * threads. If there is no storage bound, the task is returned unchanged.
+    */
+   public Runnable propagate(Runnable task) {
+      S storage = storageThreadLocal.get();
+      Supplier<? extends S> lazyStorage = lazyStorageThreadLocal.get();
+      if (storage == null && lazyStorage == null) {
+         return task;
+      }
+      return () -> runWithBinding(storage, lazyStorage, task);
+   }
+
+   /**
+    * Wrap the given task, so that it runs with the storage that is bound to the
+    * current thread at the time of this call. If there is no storage bound, the
+    * task is returned unchanged.
+    */
+   public <R> Callable<R> propagate(Callable<R> task) {
+      S storage = storageThreadLocal.get();
+      Supplier<? extends S> lazyStorage = lazyStorageThreadLocal.get();
+      if (storage == null && lazyStorage == null) {
+         return task;
+      }
+      return () -> callWithBinding(storage, lazyStorage, task);
+   }
+
+   private void runWithBinding(S storage, Supplier<? extends S> lazyStorage, Runnable body) {
+      S previousStorage = storageThreadLocal.get();
+      Supplier<? extends S> previousLazyStorage = lazyStorageThreadLocal.get();
+      bind(storage, lazyStorage);
+      try {
+         body.run();
+      } finally {
+         restore(previousStorage, previousLazyStorage);
+      }
+   }
+
+   private <R> R callWithBinding(S storage, Supplier<? extends S> lazyStorage, Callable<R> body) throws Exception {
+      S previousStorage = storageThreadLocal.get();
+      Supplier<? extends S> previousLazyStorage = lazyStorageThreadLocal.get();
+      bind(storage, lazyStorage);
+      try {
+         return body.call();
+      } finally {
+         restore(previousStorage, previousLazyStorage);
+      }
+   }
+
+   /**
+    * Restore the binding that was in effect before a structured binding. The
+    * storage is only cleared if there was no binding before, so subclasses
+    * see <code>clearStorage()</code> only when the outermost binding ends.
+    */
+   private void restore(S previousStorage, Supplier<? extends S> previousLazyStorage) {
+      if (previousStorage == null && previousLazyStorage == null) {
+         clearStorage();
+      } else {
+         lazyStorageThreadLocal.remove();
+         bind(previousStorage, previousLazyStorage);
+      }
+   }
+
+   private void bind(S storage, Supplier<? extends S> lazyStorage) {
+      if (lazyStorage != null) {
+         setLazyStorage(lazyStorage);
+      }
+      if (storage != null) {
+         setStorage(storage);
+      }
    }
 
    public interface TriConsumer<A1, A2, A3> {
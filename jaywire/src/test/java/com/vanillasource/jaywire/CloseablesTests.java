@@ -0,0 +1,60 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+import static org.mockito.Mockito.*;
+import org.mockito.InOrder;
+import java.util.Arrays;
+
+@Test
+public class CloseablesTests {
+   public void testClosesInReverseOrder() throws Exception {
+      AutoCloseable closeable1 = mock(AutoCloseable.class);
+      AutoCloseable closeable2 = mock(AutoCloseable.class);
+
+      Closeables.closeInReverseOrder(Arrays.asList(closeable1, closeable2), "could not close");
+
+      InOrder inOrder = inOrder(closeable1, closeable2);
+      inOrder.verify(closeable2).close();
+      inOrder.verify(closeable1).close();
+   }
+
+   public void testNoFailureIsReturnedIfAllAreClosed() {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+
+      assertNull(Closeables.closeInReverseOrder(Arrays.asList(closeable), "could not close"));
+   }
+
+   public void testAllAreClosedAndAllFailuresAreReturned() throws Exception {
+      AutoCloseable closeable1 = mock(AutoCloseable.class);
+      doThrow(new Exception("fail1")).when(closeable1).close();
+      AutoCloseable closeable2 = mock(AutoCloseable.class);
+      AutoCloseable closeable3 = mock(AutoCloseable.class);
+      doThrow(new Exception("fail3")).when(closeable3).close();
+
+      RuntimeException failure = Closeables.closeInReverseOrder(Arrays.asList(closeable1, closeable2, closeable3), "could not close");
+
+      verify(closeable2).close();
+      assertEquals(failure.getMessage(), "could not close");
+      assertEquals(failure.getSuppressed()[0].getMessage(), "fail3");
+      assertEquals(failure.getSuppressed()[1].getMessage(), "fail1");
+   }
+}
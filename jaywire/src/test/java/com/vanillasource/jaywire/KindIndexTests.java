@@ -0,0 +1,43 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire;
+
+import org.testng.annotations.*;
+import static org.testng.Assert.*;
+
+@Test
+public class KindIndexTests {
+   public void testIndexesAreDenseRegardlessOfKindIds() {
+      KindIndex index = new KindIndex();
+      for (int i = 0; i < 100; i++) {
+         Kind.named("com.vanillasource.jaywire.KindIndexTests.unused" + i);
+      }
+
+      assertEquals(index.indexOf(Kind.named("com.vanillasource.jaywire.KindIndexTests.a")), 0);
+      assertEquals(index.indexOf(Kind.named("com.vanillasource.jaywire.KindIndexTests.b")), 1);
+   }
+
+   public void testSameKindGetsSameIndex() {
+      KindIndex index = new KindIndex();
+      Kind kind = Kind.named("com.vanillasource.jaywire.KindIndexTests.c");
+      index.indexOf(Kind.named("com.vanillasource.jaywire.KindIndexTests.d"));
+
+      assertEquals(index.indexOf(kind), index.indexOf(kind));
+   }
+}
@@ -0,0 +1,61 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeMethod;
+import static org.testng.Assert.*;
+
+@Test
+public class KindTableTests {
+   private KindTable table;
+
+   public void testEmptyTableReturnsNull() {
+      assertNull(table.get(Kind.named("Ni")));
+   }
+
+   public void testStoredObjectIsReturned() {
+      table.put(Kind.named("Ni"), "Value");
+
+      assertEquals(table.get(Kind.named("Ni")), "Value");
+   }
+
+   public void testObjectsOfDifferentKindsAreKeptSeparately() {
+      table.put(Kind.named("Ni"), "Value1");
+      table.put(Kind.named("Nu"), "Value2");
+
+      assertEquals(table.get(Kind.named("Ni")), "Value1");
+      assertEquals(table.get(Kind.named("Nu")), "Value2");
+   }
+
+   public void testTableGrowsForManyKinds() {
+      for (int i = 0; i < 100; i++) {
+         table.put(Kind.named("Kind"+i), i);
+      }
+
+      for (int i = 0; i < 100; i++) {
+         assertEquals(table.get(Kind.named("Kind"+i)), i);
+      }
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      table = new KindTable(new KindIndex());
+   }
+}
@@ -0,0 +1,76 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+@Test
+public class KindTests {
+   public void testSameFactoryHasSameKind() {
+      Factory<Object> factory = () -> new Object();
+
+      assertSame(Kind.of(factory), Kind.of(factory));
+   }
+
+   public void testDifferentFactoriesHaveDifferentKinds() {
+      Factory<Object> factory1 = () -> new Object();
+      Factory<Object> factory2 = () -> new Object();
+
+      assertNotSame(Kind.of(factory1), Kind.of(factory2));
+      assertNotEquals(Kind.of(factory1).getId(), Kind.of(factory2).getId());
+   }
+
+   public void testKindNameIsKindOfKinded() {
+      Factory<Object> factory = () -> new Object();
+
+      assertEquals(Kind.of(factory).getName(), factory.getKind());
+   }
+
+   public void testKindIsSameAsNamedKind() {
+      Factory<Object> factory = () -> new Object();
+
+      assertSame(Kind.of(factory), Kind.named(factory.getKind()));
+   }
+
+   public void testOverriddenKindIsRespected() {
+      assertSame(Kind.of(new NamedKinded("Ni")), Kind.named("Ni"));
+   }
+
+   public void testSameOverriddenKindsAreSame() {
+      assertSame(Kind.of(new NamedKinded("Nu")), Kind.of(new NamedKinded("Nu")));
+   }
+
+   public void testDifferentOverriddenKindsOfSameClassAreDifferent() {
+      assertNotSame(Kind.of(new NamedKinded("Ni")), Kind.of(new NamedKinded("Nu")));
+   }
+
+   private static class NamedKinded implements Kinded {
+      private final String name;
+
+      private NamedKinded(String name) {
+         this.name = name;
+      }
+
+      @Override
+      public String getKind() {
+         return name;
+      }
+   }
+}
@@ -0,0 +1,305 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.proxy;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeMethod;
+import static org.testng.Assert.*;
+import static org.mockito.Mockito.*;
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Scope;
+import com.vanillasource.jaywire.standalone.SingletonScope;
+import java.time.Duration;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Test
+public class PooledScopeTests {
+   private long now;
+   private AtomicInteger creations;
+   private Factory<Object> factory;
+
+   public void testInstanceIsReusedBetweenCalls() {
+      Proxy<Object> proxy = builder().build().proxy(factory);
+
+      Object result1 = proxy.call(object -> object);
+      Object result2 = proxy.call(object -> object);
+
+      assertSame(result1, result2);
+      assertEquals(creations.get(), 1);
+   }
+
+   public void testNestedCallsGetDifferentInstances() {
+      Proxy<Object> proxy = builder().withMaximumSize(2).build().proxy(factory);
+
+      Object[] results = proxy.call(outer -> proxy.call(inner -> new Object[] { outer, inner }));
+
+      assertNotSame(results[0], results[1]);
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testExhaustedPoolFailsWithFailPolicy() {
+      Proxy<Object> proxy = builder()
+         .withMaximumSize(1)
+         .withExhaustedPolicy(PooledScope.ExhaustedPolicy.FAIL)
+         .build().proxy(factory);
+
+      proxy.call(outer -> proxy.call(inner -> inner));
+   }
+
+   public void testExhaustedPoolCreatesInstanceWithGrowPolicy() {
+      Proxy<Object> proxy = builder()
+         .withMaximumSize(1)
+         .withExhaustedPolicy(PooledScope.ExhaustedPolicy.GROW)
+         .build().proxy(factory);
+
+      proxy.call(outer -> proxy.call(inner -> inner));
+
+      assertEquals(creations.get(), 2);
+   }
+
+   public void testGrownInstanceIsClosedAfterUsage() throws Exception {
+      AutoCloseable closeable1 = mock(AutoCloseable.class);
+      AutoCloseable closeable2 = mock(AutoCloseable.class);
+      Proxy<AutoCloseable> proxy = builder()
+         .withMaximumSize(1)
+         .withExhaustedPolicy(PooledScope.ExhaustedPolicy.GROW)
+         .build().proxy(() -> creations.incrementAndGet() == 1 ? closeable1 : closeable2);
+
+      proxy.call(outer -> proxy.call(inner -> inner));
+
+      verify(closeable1, never()).close();
+      verify(closeable2).close();
+   }
+
+   public void testInstanceIsReturnedEvenIfCallFails() {
+      Proxy<Object> proxy = builder().withMaximumSize(1).build().proxy(factory);
+
+      try {
+         proxy.call(object -> { throw new IllegalArgumentException("fail"); });
+      } catch (IllegalArgumentException e) {
+         // Expected
+      }
+      proxy.call(object -> object);
+
+      assertEquals(creations.get(), 1);
+   }
+
+   public void testIdleInstanceIsEvicted() {
+      Proxy<Object> proxy = builder().withIdleTimeout(Duration.ofNanos(10)).build().proxy(factory);
+
+      Object result1 = proxy.call(object -> object);
+      now += 10;
+      Object result2 = proxy.call(object -> object);
+
+      assertNotSame(result1, result2);
+   }
+
+   public void testMinimumIdleInstancesAreNotEvicted() {
+      Proxy<Object> proxy = builder()
+         .withIdleTimeout(Duration.ofNanos(10))
+         .withMinimumIdle(1)
+         .build().proxy(factory);
+
+      Object result1 = proxy.call(object -> object);
+      now += 10;
+      Object result2 = proxy.call(object -> object);
+
+      assertSame(result1, result2);
+   }
+
+   public void testEvictedInstanceIsClosed() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      Proxy<AutoCloseable> proxy = builder().withIdleTimeout(Duration.ofNanos(10)).build().proxy(() -> closeable);
+
+      proxy.call(object -> object);
+      now += 10;
+      proxy.call(object -> object);
+
+      verify(closeable).close();
+   }
+
+   public void testCloseFailureOfGrownInstanceDoesNotFailCall() throws Exception {
+      List<Exception> failures = new ArrayList<>();
+      Proxy<AutoCloseable> proxy = failingCloseBuilder(failures).build().proxy(this::failingCloseable);
+
+      Object result = proxy.call(outer -> proxy.call(inner -> "Ni"));
+
+      assertEquals(result, "Ni");
+      assertEquals(failures.size(), 1);
+   }
+
+   public void testCloseFailureOfGrownInstanceDoesNotMaskCallFailure() throws Exception {
+      List<Exception> failures = new ArrayList<>();
+      Proxy<AutoCloseable> proxy = failingCloseBuilder(failures).build().proxy(this::failingCloseable);
+
+      try {
+         proxy.call(outer -> proxy.call(inner -> { throw new IllegalArgumentException("fail"); }));
+         fail("call failure was not propagated");
+      } catch (IllegalArgumentException e) {
+         assertEquals(failures.size(), 1);
+      }
+   }
+
+   public void testAllEvictedInstancesAreClosedAndBorrowSucceedsIfClosesFail() throws Exception {
+      List<Exception> failures = new ArrayList<>();
+      Proxy<AutoCloseable> proxy = builder()
+         .withMaximumSize(2)
+         .withIdleTimeout(Duration.ofNanos(10))
+         .withCloseFailureHandler(failures::add)
+         .build().proxy(this::failingCloseable);
+
+      proxy.call(outer -> proxy.call(inner -> inner));
+      now += 10;
+      proxy.call(object -> object);
+
+      assertEquals(failures.size(), 2);
+   }
+
+   private PooledScope.Builder failingCloseBuilder(List<Exception> failures) {
+      return builder()
+         .withMaximumSize(1)
+         .withExhaustedPolicy(PooledScope.ExhaustedPolicy.GROW)
+         .withCloseFailureHandler(failures::add);
+   }
+
+   private AutoCloseable failingCloseable() {
+      return () -> { throw new Exception("close failed"); };
+   }
+
+   public void testPooledProxySupportUsesPooledScope() {
+      PooledProxySupport module = new PooledProxySupport() {
+         private PooledScope scope = builder().build();
+
+         @Override
+         public PooledScope getPooledScope() {
+            return scope;
+         }
+
+         @Override
+         public Scope getSingletonScope() {
+            throw new UnsupportedOperationException();
+         }
+
+         @Override
+         public <T extends AutoCloseable> T closeWithModule(T closeable) {
+            throw new UnsupportedOperationException();
+         }
+
+         @Override
+         public void close() {
+         }
+      };
+
+      Proxy<Object> proxy = module.pooledProxy(factory);
+      proxy.call(object -> object);
+      proxy.call(object -> object);
+
+      assertEquals(creations.get(), 1);
+   }
+
+   public void testDefaultPooledScopeIsClosedWithModule() {
+      List<AutoCloseable> closeables = new ArrayList<>();
+      SingletonScope singletons = new SingletonScope();
+      PooledProxySupport module = new PooledProxySupport() {
+         @Override
+         public Scope getSingletonScope() {
+            return singletons;
+         }
+
+         @Override
+         public <T extends AutoCloseable> T closeWithModule(T closeable) {
+            closeables.add(closeable);
+            return closeable;
+         }
+
+         @Override
+         public void close() {
+         }
+      };
+
+      module.getPooledScope();
+      module.getPooledScope();
+
+      assertEquals(closeables.size(), 1);
+      assertSame(closeables.get(0), module.getPooledScope());
+   }
+
+   public void testClosingScopeClosesIdleInstances() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      PooledScope scope = builder().build();
+      scope.proxy(() -> closeable).call(object -> object);
+
+      scope.close();
+
+      verify(closeable).close();
+   }
+
+   public void testInstanceInUseIsClosedWhenReleasedAfterClose() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      PooledScope scope = builder().build();
+
+      scope.proxy(() -> closeable).call(object -> {
+         scope.close();
+         return object;
+      });
+
+      verify(closeable).close();
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testClosedScopeCanNotBeUsed() {
+      PooledScope scope = builder().build();
+      Proxy<Object> proxy = scope.proxy(factory);
+
+      scope.close();
+
+      proxy.call(object -> object);
+   }
+
+   public void testAllIdleInstancesAreClosedIfOneFails() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      PooledScope scope = builder().build();
+      scope.proxy(this::failingCloseable).call(object -> object);
+      scope.proxy(() -> closeable).call(object -> object);
+
+      try {
+         scope.close();
+         fail("close should fail");
+      } catch (RuntimeException e) {
+         assertEquals(e.getSuppressed().length, 1);
+      }
+      verify(closeable).close();
+   }
+
+   private PooledScope.Builder builder() {
+      return PooledScope.builder().withTicker(() -> now);
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      now = 0;
+      creations = new AtomicInteger();
+      factory = () -> {
+         creations.incrementAndGet();
+         return new Object();
+      };
+   }
+}
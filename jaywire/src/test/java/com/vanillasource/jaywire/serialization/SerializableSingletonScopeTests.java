@@ -0,0 +1,83 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.serialization;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeMethod;
+import static org.testng.Assert.*;
+import static org.mockito.Mockito.*;
+import com.vanillasource.jaywire.Scope;
+import com.vanillasource.jaywire.Factory;
+import static com.vanillasource.jaywire.serialization.SerializationUtils.*;
+import java.util.function.Supplier;
+
+@Test
+public class SerializableSingletonScopeTests {
+   private Scope delegateScope;
+   private SerializableSingletonScope scope;
+   private Factory<String> factory = () -> "Ni";
+
+   public void testSupplierReturnsDelegateInstance() {
+      Supplier<String> supplier = scope.apply(factory);
+
+      assertEquals(supplier.get(), "Ni");
+   }
+
+   public void testSupplierResolvesInstanceOnlyOnce() {
+      Supplier<String> supplier = scope.apply(factory);
+
+      supplier.get();
+      supplier.get();
+
+      verify(delegateScope, times(1)).get(factory);
+   }
+
+   public void testSupplierResolvesAgainIfDelegateReturnedNull() {
+      when(delegateScope.get(factory)).thenReturn(null);
+      Supplier<String> supplier = scope.apply(factory);
+
+      supplier.get();
+      supplier.get();
+
+      verify(delegateScope, times(2)).get(factory);
+   }
+
+   public void testResolvedSupplierIsSerializable() throws Exception {
+      Supplier<String> supplier = scope.apply(factory);
+      supplier.get();
+
+      serialize(supplier);
+   }
+
+   public void testDeserializedSupplierResolvesThroughStaticallyDeterminedDelegate() throws Exception {
+      Supplier<String> supplier = scope.apply(factory);
+      supplier.get();
+
+      Supplier<String> deserializedSupplier = serializeThenDeserialize(supplier);
+
+      assertEquals(deserializedSupplier.get(), "Nu");
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      delegateScope = mock(Scope.class);
+      when(delegateScope.get(factory)).thenReturn("Ni");
+      scope = new SerializableSingletonScope(delegateScope, () -> new FixedScope());
+   }
+}
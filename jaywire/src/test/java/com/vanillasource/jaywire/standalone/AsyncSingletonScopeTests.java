@@ -0,0 +1,156 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeMethod;
+import static org.testng.Assert.*;
+import com.vanillasource.jaywire.Factory;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Test
+public class AsyncSingletonScopeTests {
+   private List<Runnable> tasks;
+   private AsyncSingletonScope scope;
+   private AtomicInteger creations;
+   private Factory<Object> factory;
+
+   public void testConstructionIsNotDoneOnCallingThread() {
+      CompletableFuture<Object> future = scope.getAsync(factory);
+
+      assertFalse(future.isDone());
+   }
+
+   public void testFutureCompletesWhenConstructed() {
+      CompletableFuture<Object> future = scope.getAsync(factory);
+
+      runTasks();
+
+      assertTrue(future.isDone());
+   }
+
+   public void testInFlightConstructionIsShared() {
+      CompletableFuture<Object> future1 = scope.getAsync(factory);
+      CompletableFuture<Object> future2 = scope.getAsync(factory);
+      runTasks();
+
+      assertEquals(tasks.size(), 0);
+      assertEquals(creations.get(), 1);
+      assertSame(future1.join(), future2.join());
+   }
+
+   public void testCompletingReturnedFutureDoesNotAffectOthers() {
+      scope.getAsync(factory).complete("hijacked");
+      runTasks();
+
+      assertNotEquals(scope.get(factory), "hijacked");
+   }
+
+   public void testCancellingReturnedFutureDoesNotAffectOthers() {
+      scope.getAsync(factory).cancel(true);
+      runTasks();
+
+      assertTrue(scope.getAsync(factory).isDone());
+      assertFalse(scope.getAsync(factory).isCancelled());
+   }
+
+   public void testObjectIsConstructedOnce() {
+      scope.getAsync(factory);
+      runTasks();
+      scope.getAsync(factory);
+
+      assertEquals(creations.get(), 1);
+   }
+
+   public void testFailedConstructionIsRetried() {
+      Factory<Object> failingFactory = () -> {
+         if (creations.incrementAndGet() == 1) {
+            throw new IllegalStateException("fail");
+         }
+         return "Ni";
+      };
+      CompletableFuture<Object> future1 = scope.getAsync(failingFactory);
+      runTasks();
+      CompletableFuture<Object> future2 = scope.getAsync(failingFactory);
+      runTasks();
+
+      assertTrue(future1.isCompletedExceptionally());
+      assertEquals(future2.join(), "Ni");
+   }
+
+   public void testGetBlocksUntilConstructed() {
+      AsyncSingletonScope directScope = new AsyncSingletonScope(Runnable::run);
+
+      assertEquals(directScope.get(() -> "Ni"), "Ni");
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testGetRethrowsFactoryException() {
+      AsyncSingletonScope directScope = new AsyncSingletonScope(Runnable::run);
+
+      directScope.get(() -> { throw new IllegalStateException("fail"); });
+   }
+
+   public void testRejectedConstructionFailsFuture() {
+      AsyncSingletonScope rejectingScope = new AsyncSingletonScope(task -> {
+         throw new RejectedExecutionException("rejected");
+      });
+
+      CompletableFuture<Object> future = rejectingScope.getAsync(factory);
+
+      assertTrue(future.isCompletedExceptionally());
+   }
+
+   public void testRejectedConstructionIsRetried() {
+      AtomicInteger executions = new AtomicInteger();
+      AsyncSingletonScope rejectingOnceScope = new AsyncSingletonScope(task -> {
+         if (executions.incrementAndGet() == 1) {
+            throw new RejectedExecutionException("rejected");
+         }
+         task.run();
+      });
+
+      rejectingOnceScope.getAsync(factory);
+      CompletableFuture<Object> future = rejectingOnceScope.getAsync(factory);
+
+      assertTrue(future.isDone());
+      assertFalse(future.isCompletedExceptionally());
+   }
+
+   private void runTasks() {
+      List<Runnable> currentTasks = new ArrayList<>(tasks);
+      tasks.clear();
+      currentTasks.forEach(Runnable::run);
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      tasks = new ArrayList<>();
+      scope = new AsyncSingletonScope(tasks::add);
+      creations = new AtomicInteger();
+      factory = () -> {
+         creations.incrementAndGet();
+         return new Object();
+      };
+   }
+}
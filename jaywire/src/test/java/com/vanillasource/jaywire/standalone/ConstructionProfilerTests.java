@@ -0,0 +1,109 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeMethod;
+import static org.testng.Assert.*;
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.Scope;
+import java.util.List;
+
+@Test
+public class ConstructionProfilerTests {
+   private ConstructionProfiler profiler;
+   private Scope scope;
+   private Factory<Object> inner;
+   private Factory<Object[]> outer;
+
+   public void testConstructionIsRecorded() {
+      scope.get(inner);
+
+      List<ConstructionProfiler.Construction> constructions = profiler.getConstructions();
+      assertEquals(constructions.size(), 1);
+      assertEquals(constructions.get(0).getKind(), inner.getKind());
+      assertEquals(constructions.get(0).getThreadName(), Thread.currentThread().getName());
+   }
+
+   public void testCachedObjectIsNotRecordedAgain() {
+      scope.get(inner);
+      scope.get(inner);
+
+      assertEquals(profiler.getConstructions().size(), 1);
+   }
+
+   public void testNestedConstructionIsRecordedAsChildTime() {
+      scope.get(outer);
+
+      List<ConstructionProfiler.Construction> constructions = profiler.getConstructions();
+      assertEquals(constructions.size(), 2);
+      assertEquals(constructions.get(1).getKind(), outer.getKind());
+      assertTrue(constructions.get(1).getChildMicros() >= constructions.get(0).getWallMicros());
+   }
+
+   public void testDependencyIsRecorded() {
+      scope.get(outer);
+
+      ConstructionProfiler.Dependency dependency = profiler.getDependencies().iterator().next();
+      assertEquals(dependency.getParentKind(), outer.getKind());
+      assertEquals(dependency.getChildKind(), inner.getKind());
+   }
+
+   public void testDependencyOnExistingObjectIsRecorded() {
+      scope.get(inner);
+      scope.get(outer);
+
+      assertEquals(profiler.getDependencies().size(), 1);
+   }
+
+   public void testReportContainsConstructionsAndDependencies() {
+      scope.get(outer);
+
+      String report = profiler.toReport();
+
+      assertTrue(report.startsWith("{\"constructions\":[{\"kind\":"));
+      assertTrue(report.contains("\"parent\":\""+outer.getKind()+"\""));
+   }
+
+   public void testChromeTraceContainsCompleteEvents() {
+      scope.get(inner);
+
+      String trace = profiler.toChromeTrace();
+
+      assertTrue(trace.startsWith("{\"traceEvents\":[{\"name\":\""+inner.getKind()+"\""));
+      assertTrue(trace.contains("\"ph\":\"X\""));
+   }
+
+   public void testProfiledModuleRecordsSingletons() {
+      StandaloneModule module = new StandaloneModule(profiler) {};
+
+      module.singleton(inner);
+
+      assertSame(module.getConstructionProfiler(), profiler);
+      assertEquals(profiler.getConstructions().get(0).getKind(), inner.getKind());
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      profiler = new ConstructionProfiler();
+      scope = profiler.profile(new SingletonScope());
+      inner = () -> new Object();
+      outer = () -> new Object[] { scope.get(inner) };
+   }
+}
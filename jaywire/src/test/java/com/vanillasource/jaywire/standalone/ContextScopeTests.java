@@ -0,0 +1,130 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeMethod;
+import static org.testng.Assert.*;
+import com.vanillasource.jaywire.Factory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Test
+public class ContextScopeTests {
+   private ContextScope scope;
+   private Factory<Object> factory = Object::new;
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testGetOutsideContextThrowsException() {
+      scope.get(factory);
+   }
+
+   public void testSameContextReturnsSameObject() {
+      scope.run(() -> assertSame(scope.get(factory), scope.get(factory)));
+   }
+
+   public void testDifferentContextsReturnDifferentObjects() throws Exception {
+      Object first = scope.call(() -> scope.get(factory));
+      Object second = scope.call(() -> scope.get(factory));
+
+      assertNotSame(first, second);
+   }
+
+   public void testNestedContextRestoresOuterContext() {
+      scope.run(() -> {
+         Object outer = scope.get(factory);
+         scope.run(() -> assertNotSame(scope.get(factory), outer));
+         assertSame(scope.get(factory), outer);
+      });
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testContextIsUnboundAfterCall() {
+      scope.run(() -> scope.get(factory));
+
+      scope.get(factory);
+   }
+
+   public void testCloseablesAreClosedInReverseOrderAfterContext() {
+      List<String> closed = new ArrayList<>();
+      scope.run(() -> {
+         scope.get(new NamedCloseable("first", closed));
+         scope.get(new NamedCloseable("second", closed));
+         assertTrue(closed.isEmpty());
+      });
+
+      assertEquals(closed, Arrays.asList("second", "first"));
+   }
+
+   public void testCloseablesAreClosedIfBodyFails() {
+      List<String> closed = new ArrayList<>();
+      try {
+         scope.run(() -> {
+            scope.get(new NamedCloseable("first", closed));
+            throw new IllegalArgumentException("body failed");
+         });
+         fail("body failure was not propagated");
+      } catch (IllegalArgumentException e) {
+         assertEquals(closed.size(), 1);
+      }
+   }
+
+   @Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = "could not close.*")
+   public void testCloseFailureIsThrown() {
+      scope.run(() -> scope.get(() -> (AutoCloseable) () -> { throw new Exception("close failed"); }));
+   }
+
+   public void testCloseFailureIsSuppressedIfBodyFails() {
+      try {
+         scope.run(() -> {
+            scope.get(() -> (AutoCloseable) () -> { throw new Exception("close failed"); });
+            throw new IllegalArgumentException("body failed");
+         });
+         fail("body failure was not propagated");
+      } catch (IllegalArgumentException e) {
+         assertEquals(e.getSuppressed().length, 1);
+      }
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      scope = new ContextScope();
+   }
+
+   private static final class NamedCloseable implements Factory<AutoCloseable> {
+      private final String name;
+      private final List<String> closed;
+
+      private NamedCloseable(String name, List<String> closed) {
+         this.name = name;
+         this.closed = closed;
+      }
+
+      @Override
+      public AutoCloseable get() {
+         return () -> closed.add(name);
+      }
+
+      @Override
+      public String getKind() {
+         return name;
+      }
+   }
+}
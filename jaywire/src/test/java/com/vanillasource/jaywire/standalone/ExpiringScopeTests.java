@@ -0,0 +1,312 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeMethod;
+import static org.testng.Assert.*;
+import static org.mockito.Mockito.*;
+import com.vanillasource.jaywire.Factory;
+import java.time.Duration;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.RejectedExecutionException;
+
+@Test
+public class ExpiringScopeTests {
+   private long now;
+   private List<Runnable> tasks;
+   private Factory<Object> factory1;
+   private Factory<Object> factory2;
+
+   public void testInstanceIsReusedBeforeExpiry() {
+      ExpiringScope scope = builder().withTimeToLive(Duration.ofNanos(10)).build();
+
+      Object result1 = scope.get(factory1);
+      now += 9;
+      Object result2 = scope.get(factory1);
+
+      assertSame(result1, result2);
+   }
+
+   public void testInstanceIsRecreatedAfterTimeToLive() {
+      ExpiringScope scope = builder().withTimeToLive(Duration.ofNanos(10)).build();
+
+      Object result1 = scope.get(factory1);
+      now += 10;
+      Object result2 = scope.get(factory1);
+
+      assertNotSame(result1, result2);
+   }
+
+   public void testUsedInstanceIsKeptWithTimeToIdle() {
+      ExpiringScope scope = builder().withTimeToIdle(Duration.ofNanos(10)).build();
+
+      Object result1 = scope.get(factory1);
+      now += 9;
+      scope.get(factory1);
+      now += 9;
+      Object result2 = scope.get(factory1);
+
+      assertSame(result1, result2);
+   }
+
+   public void testIdleInstanceIsRecreatedAfterTimeToIdle() {
+      ExpiringScope scope = builder().withTimeToIdle(Duration.ofNanos(10)).build();
+
+      Object result1 = scope.get(factory1);
+      now += 10;
+      Object result2 = scope.get(factory1);
+
+      assertNotSame(result1, result2);
+   }
+
+   public void testLeastRecentlyUsedInstanceIsEvicted() {
+      ExpiringScope scope = builder().withMaximumSize(1).build();
+
+      Object result1 = scope.get(factory1);
+      now += 1;
+      scope.get(factory2);
+      Object result2 = scope.get(factory1);
+
+      assertNotSame(result1, result2);
+   }
+
+   public void testRecentlyUsedInstanceIsKept() {
+      ExpiringScope scope = builder().withMaximumSize(2).build();
+
+      Object result1 = scope.get(factory1);
+      now += 1;
+      scope.get(factory2);
+      Object result2 = scope.get(factory1);
+
+      assertSame(result1, result2);
+   }
+
+   public void testEvictedCloseableIsClosed() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      ExpiringScope scope = builder().withMaximumSize(1).closingEvicted().build();
+
+      scope.get(() -> closeable);
+      now += 1;
+      scope.get(factory1);
+
+      verify(closeable).close();
+   }
+
+   public void testExpiredCloseableIsClosedWhenReplaced() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      ExpiringScope scope = builder().withTimeToLive(Duration.ofNanos(10)).closingEvicted().build();
+      Factory<AutoCloseable> factory = () -> closeable;
+
+      scope.get(factory);
+      now += 10;
+      scope.get(factory);
+
+      verify(closeable).close();
+   }
+
+   public void testCloseFailureOfEvictedDoesNotFailLookup() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      doThrow(new Exception("close failed")).when(closeable).close();
+      List<Exception> failures = new ArrayList<>();
+      ExpiringScope scope = builder().withMaximumSize(1).closingEvicted().withCloseFailureHandler(failures::add).build();
+
+      scope.get(() -> closeable);
+      now += 1;
+      Object result = scope.get(factory1);
+
+      assertSame(scope.get(factory1), result);
+      assertEquals(failures.size(), 1);
+   }
+
+   public void testAllEvictedAreClosedIfOneFails() throws Exception {
+      AutoCloseable closeable1 = mock(AutoCloseable.class);
+      doThrow(new Exception("close failed")).when(closeable1).close();
+      AutoCloseable closeable2 = mock(AutoCloseable.class);
+      List<Exception> failures = new ArrayList<>();
+      ExpiringScope scope = builder().withMaximumSize(2).closingEvicted().withCloseFailureHandler(failures::add).build();
+      Factory<Object> factory3 = () -> new Object();
+
+      scope.get(() -> closeable1);
+      now += 1;
+      scope.get(() -> closeable2);
+      now += 1;
+      scope.get(factory1);
+      now += 1;
+      scope.get(factory3);
+
+      verify(closeable1).close();
+      verify(closeable2).close();
+      assertEquals(failures.size(), 1);
+   }
+
+   public void testEvictedCloseableIsNotClosedByDefault() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      ExpiringScope scope = builder().withMaximumSize(1).build();
+
+      scope.get(() -> closeable);
+      now += 1;
+      scope.get(factory1);
+
+      verify(closeable, never()).close();
+   }
+
+   public void testRefreshIsNotStartedBeforeRefreshAheadWindow() {
+      ExpiringScope scope = refreshingBuilder().build();
+
+      scope.get(factory1);
+      now += 7;
+      scope.get(factory1);
+
+      assertTrue(tasks.isEmpty());
+   }
+
+   public void testRefreshIsStartedInRefreshAheadWindow() {
+      ExpiringScope scope = refreshingBuilder().build();
+
+      scope.get(factory1);
+      now += 8;
+      scope.get(factory1);
+
+      assertEquals(tasks.size(), 1);
+   }
+
+   public void testRefreshIsStartedOnlyOnce() {
+      ExpiringScope scope = refreshingBuilder().build();
+
+      scope.get(factory1);
+      now += 8;
+      scope.get(factory1);
+      scope.get(factory1);
+
+      assertEquals(tasks.size(), 1);
+   }
+
+   public void testOldInstanceIsReturnedUntilRefreshed() {
+      ExpiringScope scope = refreshingBuilder().build();
+
+      Object result1 = scope.get(factory1);
+      now += 8;
+      Object result2 = scope.get(factory1);
+
+      assertSame(result1, result2);
+   }
+
+   public void testNewInstanceIsReturnedAfterRefresh() {
+      ExpiringScope scope = refreshingBuilder().build();
+
+      Object result1 = scope.get(factory1);
+      now += 8;
+      scope.get(factory1);
+      tasks.forEach(Runnable::run);
+      Object result2 = scope.get(factory1);
+
+      assertNotSame(result1, result2);
+   }
+
+   public void testRefreshedCloseableIsClosed() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      ExpiringScope scope = refreshingBuilder().closingEvicted().build();
+      Factory<AutoCloseable> factory = () -> closeable;
+
+      scope.get(factory);
+      now += 8;
+      scope.get(factory);
+      tasks.forEach(Runnable::run);
+
+      verify(closeable).close();
+   }
+
+   public void testCloseFailureOfRefreshedIsReported() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      doThrow(new Exception("close failed")).when(closeable).close();
+      List<Exception> failures = new ArrayList<>();
+      ExpiringScope scope = refreshingBuilder().closingEvicted().withCloseFailureHandler(failures::add).build();
+      Factory<AutoCloseable> factory = () -> closeable;
+
+      scope.get(factory);
+      now += 8;
+      scope.get(factory);
+      tasks.forEach(Runnable::run);
+
+      assertEquals(failures.size(), 1);
+   }
+
+   public void testRejectedRefreshReturnsCachedInstance() {
+      List<Exception> failures = new ArrayList<>();
+      ExpiringScope scope = rejectingBuilder().withCloseFailureHandler(failures::add).build();
+
+      Object result1 = scope.get(factory1);
+      now += 8;
+      Object result2 = scope.get(factory1);
+
+      assertSame(result1, result2);
+   }
+
+   public void testRejectedRefreshIsReported() {
+      List<Exception> failures = new ArrayList<>();
+      ExpiringScope scope = rejectingBuilder().withCloseFailureHandler(failures::add).build();
+
+      scope.get(factory1);
+      now += 8;
+      scope.get(factory1);
+
+      assertEquals(failures.size(), 1);
+      assertTrue(failures.get(0) instanceof RejectedExecutionException);
+   }
+
+   public void testRejectedRefreshIsStartedAgain() {
+      List<Exception> failures = new ArrayList<>();
+      ExpiringScope scope = rejectingBuilder().withCloseFailureHandler(failures::add).build();
+
+      scope.get(factory1);
+      now += 8;
+      scope.get(factory1);
+      scope.get(factory1);
+
+      assertEquals(failures.size(), 2);
+   }
+
+   private ExpiringScope.Builder rejectingBuilder() {
+      return builder()
+         .withTimeToLive(Duration.ofNanos(10))
+         .withRefreshAhead(Duration.ofNanos(2), task -> {
+            throw new RejectedExecutionException("executor is shut down");
+         });
+   }
+
+   private ExpiringScope.Builder refreshingBuilder() {
+      return builder()
+         .withTimeToLive(Duration.ofNanos(10))
+         .withRefreshAhead(Duration.ofNanos(2), tasks::add);
+   }
+
+   private ExpiringScope.Builder builder() {
+      return ExpiringScope.builder().withTicker(() -> now);
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      now = 0;
+      tasks = new ArrayList<>();
+      factory1 = () -> new Object();
+      factory2 = () -> new Object();
+   }
+}
@@ -0,0 +1,80 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeMethod;
+import static org.testng.Assert.*;
+import com.vanillasource.jaywire.Factory;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.ArrayList;
+
+@Test
+public class ReferenceScopeTests {
+   private List<Reference<Object>> references;
+   private ReferenceScope scope;
+   private Factory<Object> factory;
+
+   public void testSameInstanceIsReturnedWhileReferenced() {
+      Object result1 = scope.get(factory);
+      Object result2 = scope.get(factory);
+
+      assertSame(result1, result2);
+   }
+
+   public void testNewInstanceIsCreatedAfterReferenceIsCleared() {
+      Object result1 = scope.get(factory);
+      references.forEach(Reference::clear);
+      Object result2 = scope.get(factory);
+
+      assertNotSame(result1, result2);
+   }
+
+   public void testInstanceIsReferencedOnlyOnce() {
+      scope.get(factory);
+      scope.get(factory);
+
+      assertEquals(references.size(), 1);
+   }
+
+   public void testSoftScopeReturnsSameInstance() {
+      ReferenceScope softScope = ReferenceScope.soft();
+
+      assertSame(softScope.get(factory), softScope.get(factory));
+   }
+
+   public void testWeakScopeReturnsSameInstanceWhileReferenced() {
+      ReferenceScope weakScope = ReferenceScope.weak();
+
+      assertSame(weakScope.get(factory), weakScope.get(factory));
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      references = new ArrayList<>();
+      scope = new ReferenceScope(object -> {
+         Reference<Object> reference = new WeakReference<>(object);
+         references.add(reference);
+         return reference;
+      });
+      factory = () -> new Object();
+   }
+}
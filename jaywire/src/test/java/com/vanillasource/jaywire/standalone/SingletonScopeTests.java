@@ -21,6 +21,12 @@ package com.vanillasource.jaywire.standalone;
 import org.testng.annotations.Test;
 import static org.testng.Assert.*;
 import java.util.function.Supplier;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import com.vanillasource.jaywire.Factory;
 
 @Test
@@ -37,6 +43,171 @@ public class SingletonScopeTests {
       assertSame(result1, result2);
    }
 
+   public void testAppliedSupplierReturnsSameInstanceAsScope() {
+      SingletonScope scope = new SingletonScope();
+      Factory<Object> factory = () -> new Object();
+      Supplier<Object> supplier = scope.apply(factory);
+
+      Object result = supplier.get();
+
+      assertSame(result, scope.get(factory));
+      assertSame(supplier.get(), result);
+   }
+
+   public void testFrozenScopeReturnsExistingInstance() {
+      SingletonScope scope = new SingletonScope();
+      Factory<Object> factory = () -> new Object();
+      Object result = scope.get(factory);
+
+      scope.freeze(SingletonScope.UnknownKindPolicy.FAIL);
+
+      assertSame(scope.get(factory), result);
+   }
+
+   public void testFrozenScopeCreatesUnknownKindWithFallbackPolicy() {
+      SingletonScope scope = new SingletonScope();
+      Factory<Object> factory = () -> new Object();
+
+      scope.freeze(SingletonScope.UnknownKindPolicy.FALLBACK);
+
+      assertSame(scope.get(factory), scope.get(factory));
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testFrozenScopeRejectsUnknownKindWithFailPolicy() {
+      SingletonScope scope = new SingletonScope();
+
+      scope.freeze(SingletonScope.UnknownKindPolicy.FAIL);
+
+      scope.get(() -> new Object());
+   }
+
+   public void testOtherSingletonsCanBeCreatedDuringCreation() {
+      SingletonScope scope = new SingletonScope();
+      Factory<Object> inner = () -> new Object();
+      Factory<Object[]> outer = () -> new Object[] { scope.get(inner) };
+
+      Object[] result = scope.get(outer);
+
+      assertSame(result[0], scope.get(inner));
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testSingletonRequiringItselfThrowsException() {
+      SingletonScope scope = new SingletonScope();
+
+      scope.get(new SelfReferencingFactory(scope));
+   }
+
+   public void testSlowCreationDoesNotBlockOtherKinds() throws Exception {
+      SingletonScope scope = new SingletonScope();
+      CountDownLatch slowStarted = new CountDownLatch(1);
+      CountDownLatch slowRelease = new CountDownLatch(1);
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         Future<Object> slow = executor.submit(() -> scope.get(() -> {
+            slowStarted.countDown();
+            await(slowRelease);
+            return "slow";
+         }));
+         slowStarted.await();
+
+         assertEquals(scope.get(() -> "fast"), "fast");
+
+         slowRelease.countDown();
+         assertEquals(slow.get(), "slow");
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   public void testConcurrentCreationOfSameKindCreatesOnce() throws Exception {
+      SingletonScope scope = new SingletonScope();
+      CountDownLatch creationStarted = new CountDownLatch(1);
+      CountDownLatch creationRelease = new CountDownLatch(1);
+      Factory<Object> factory = () -> {
+         creationStarted.countDown();
+         await(creationRelease);
+         return new Object();
+      };
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+      try {
+         Future<Object> result1 = executor.submit(() -> scope.get(factory));
+         creationStarted.await();
+         Future<Object> result2 = executor.submit(() -> scope.get(factory));
+         creationRelease.countDown();
+
+         assertSame(result1.get(), result2.get());
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   public void testCrossThreadCycleThrowsExceptionInsteadOfDeadlock() throws Exception {
+      SingletonScope scope = new SingletonScope();
+      CountDownLatch bothStarted = new CountDownLatch(2);
+      CyclicFactories factories = new CyclicFactories(scope, bothStarted);
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+      try {
+         Future<Object> result1 = executor.submit(() -> scope.get(factories.first));
+         Future<Object> result2 = executor.submit(() -> scope.get(factories.second));
+
+         int failures = countFailures(result1) + countFailures(result2);
+
+         assertTrue(failures > 0);
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   private int countFailures(Future<Object> result) throws Exception {
+      try {
+         result.get(10, TimeUnit.SECONDS);
+         return 0;
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof IllegalStateException);
+         return 1;
+      }
+   }
+
+   private static class SelfReferencingFactory implements Factory<Object> {
+      private final SingletonScope scope;
+
+      private SelfReferencingFactory(SingletonScope scope) {
+         this.scope = scope;
+      }
+
+      @Override
+      public Object get() {
+         return scope.get(this);
+      }
+   }
+
+   private static void await(CountDownLatch latch) {
+      try {
+         latch.await();
+      } catch (InterruptedException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private static class CyclicFactories {
+      private Factory<Object> first;
+      private Factory<Object> second;
+
+      private CyclicFactories(SingletonScope scope, CountDownLatch bothStarted) {
+         first = () -> {
+            bothStarted.countDown();
+            await(bothStarted);
+            return scope.get(second);
+         };
+         second = () -> {
+            bothStarted.countDown();
+            await(bothStarted);
+            return scope.get(first);
+         };
+      }
+   }
 }
 
 
@@ -25,6 +25,10 @@ import static com.vanillasource.jaywire.serialization.SerializationUtils.*;
 import static org.mockito.Mockito.*;
 import com.vanillasource.jaywire.serialization.SerializableModule;
 import java.util.function.Supplier;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import org.mockito.InOrder;
 
 @Test
 public class StandaloneModuleTests {
@@ -41,6 +45,12 @@ public class StandaloneModuleTests {
       serializeThenDeserialize(module.getThreadLocalObject());
    }
 
+   public void testSoftSingletonSupplierSerializable() throws Exception {
+      TestModule module = new TestModule();
+
+      serializeThenDeserialize(module.softSingleton(() -> "Ni"));
+   }
+
    public void testSupplierWithArityIsSerializable() throws Exception {
       TestModule module = new TestModule();
 
@@ -63,6 +73,32 @@ public class StandaloneModuleTests {
       assertEquals(singletonSupplier2.get().getParameter(), "ModuleTwo");
    }
 
+   public void testFrozenModuleReturnsSameSingletons() {
+      TestModule module = new TestModule();
+      Object singleton = module.getSingletonObject().get();
+
+      module.freeze();
+
+      assertSame(module.getSingletonObject().get(), singleton);
+   }
+
+   public void testModuleFrozenWithFailPolicyCanBeClosed() throws Exception {
+      TestModule module = new TestModule();
+      module.freeze(SingletonScope.UnknownKindPolicy.FAIL);
+
+      module.close();
+   }
+
+   public void testModuleFrozenWithFailPolicyProvidesScopes() {
+      TestModule module = new TestModule();
+      module.freeze(SingletonScope.UnknownKindPolicy.FAIL);
+
+      assertNotNull(module.getContextScope());
+      assertNotNull(module.getAsyncSingletonScope());
+      assertNotNull(module.getStripedScope());
+      assertNotNull(module.getThreadLocalScope().get(Object::new));
+   }
+
    public void testRegisteredCloseableGetsClosed() throws Exception {
       AutoCloseable closeable = mock(AutoCloseable.class);
 
@@ -86,7 +122,7 @@ public class StandaloneModuleTests {
       verify(closeable2).close();
    }
 
-   public void testCloseAbortsOnFirstFailure() throws Exception {
+   public void testCloseContinuesAfterFailure() throws Exception {
       AutoCloseable closeable1 = mock(AutoCloseable.class);
       doThrow(new Exception("fail")).when(closeable1).close();
       AutoCloseable closeable2 = mock(AutoCloseable.class);
@@ -101,7 +137,90 @@ public class StandaloneModuleTests {
       }
 
       verify(closeable1).close();
-      verify(closeable2, never()).close();
+      verify(closeable2).close();
+   }
+
+   public void testAllCloseFailuresAreReported() throws Exception {
+      AutoCloseable closeable1 = mock(AutoCloseable.class);
+      doThrow(new Exception("fail1")).when(closeable1).close();
+      AutoCloseable closeable2 = mock(AutoCloseable.class);
+      doThrow(new Exception("fail2")).when(closeable2).close();
+
+      try {
+         try (TestModule module = new TestModule()) {
+            module.closeWithModule(closeable1);
+            module.closeWithModule(closeable2);
+         }
+         fail("close failure was not thrown");
+      } catch (Exception e) {
+         assertEquals(e.getSuppressed()[0].getMessage(), "fail2");
+         assertEquals(e.getSuppressed()[1].getMessage(), "fail1");
+      }
+   }
+
+   public void testCloseablesAreClosedInReverseOrder() throws Exception {
+      AutoCloseable closeable1 = mock(AutoCloseable.class);
+      AutoCloseable closeable2 = mock(AutoCloseable.class);
+
+      try (TestModule module = new TestModule()) {
+         module.closeWithModule(closeable1);
+         module.closeWithModule(closeable2);
+      }
+
+      InOrder inOrder = inOrder(closeable1, closeable2);
+      inOrder.verify(closeable2).close();
+      inOrder.verify(closeable1).close();
+   }
+
+   public void testHangingCloseTimesOutAndOthersAreClosed() throws Exception {
+      AutoCloseable closeable1 = mock(AutoCloseable.class);
+      CountDownLatch never = new CountDownLatch(1);
+      AutoCloseable hanging = () -> never.await();
+
+      try {
+         try (TestModule module = new TimeoutTestModule(1)) {
+            module.closeWithModule(closeable1);
+            module.closeWithModule(hanging);
+         }
+         fail("timeout was not reported");
+      } catch (RuntimeException e) {
+         assertTrue(e.getSuppressed()[0] instanceof TimeoutException);
+      }
+
+      verify(closeable1).close();
+   }
+
+   public void testInterruptedCloseClosesAllAndRestoresInterrupt() throws Exception {
+      AutoCloseable closeable1 = mock(AutoCloseable.class);
+      AutoCloseable closeable2 = mock(AutoCloseable.class);
+      TestModule module = new TestModule();
+      module.closeWithModule(closeable1);
+      module.closeWithModule(closeable2);
+
+      try {
+         Thread.currentThread().interrupt();
+         module.close();
+         fail("interruption was not reported");
+      } catch (RuntimeException e) {
+         assertTrue(Thread.interrupted());
+         assertTrue(e.getSuppressed()[0] instanceof InterruptedException);
+      }
+
+      verify(closeable1).close();
+      verify(closeable2).close();
+   }
+
+   public void testParallelCloseClosesAll() throws Exception {
+      CountDownLatch bothClosing = new CountDownLatch(2);
+      AutoCloseable closeable1 = () -> { bothClosing.countDown(); bothClosing.await(); };
+      AutoCloseable closeable2 = () -> { bothClosing.countDown(); bothClosing.await(); };
+
+      try (TestModule module = new TimeoutTestModule(2)) {
+         module.closeWithModule(closeable1);
+         module.closeWithModule(closeable2);
+      }
+
+      assertEquals(bothClosing.getCount(), 0);
    }
 
    public void testCloseWithModulSyntaxIsChainable() throws Exception {
@@ -121,6 +240,22 @@ public class StandaloneModuleTests {
       }
 
    }
-}
 
+   private static class TimeoutTestModule extends TestModule {
+      private final int parallelism;
 
+      private TimeoutTestModule(int parallelism) {
+         this.parallelism = parallelism;
+      }
+
+      @Override
+      public Duration getCloseTimeout() {
+         return Duration.ofMillis(200);
+      }
+
+      @Override
+      public int getCloseParallelism() {
+         return parallelism;
+      }
+   }
+}
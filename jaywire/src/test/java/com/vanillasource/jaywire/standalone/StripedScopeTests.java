@@ -0,0 +1,78 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeMethod;
+import static org.testng.Assert.*;
+import com.vanillasource.jaywire.Factory;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Test
+public class StripedScopeTests {
+   private StripedScope scope;
+   private AtomicInteger creations;
+   private Factory<AtomicInteger> factory;
+
+   public void testSameThreadGetsSameStripe() {
+      assertSame(scope.get(factory), scope.get(factory));
+   }
+
+   public void testAllStripesAreCreatedOnce() {
+      scope.get(factory);
+      scope.get(factory);
+
+      assertEquals(creations.get(), 4);
+   }
+
+   public void testAllStripesAreDifferent() {
+      Set<AtomicInteger> stripes = new HashSet<>(scope.getAll(factory));
+
+      assertEquals(stripes.size(), 4);
+   }
+
+   public void testCurrentStripeIsOneOfAllStripes() {
+      assertTrue(scope.getAll(factory).contains(scope.get(factory)));
+   }
+
+   public void testReduceCombinesAllStripes() {
+      scope.getAll(factory).forEach(AtomicInteger::incrementAndGet);
+
+      int sum = scope.reduce(factory, stripes -> stripes.stream().mapToInt(AtomicInteger::get).sum());
+
+      assertEquals(sum, 4);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testZeroStripesAreRejected() {
+      new StripedScope(0);
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      scope = new StripedScope(4);
+      creations = new AtomicInteger();
+      factory = () -> {
+         creations.incrementAndGet();
+         return new AtomicInteger();
+      };
+   }
+}
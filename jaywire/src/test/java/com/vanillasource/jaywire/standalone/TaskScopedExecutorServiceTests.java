@@ -0,0 +1,64 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.AfterMethod;
+import static org.testng.Assert.*;
+import com.vanillasource.jaywire.Factory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Test
+public class TaskScopedExecutorServiceTests {
+   private ContextScope scope;
+   private ExecutorService executorService;
+   private Factory<Object> factory = Object::new;
+
+   public void testTaskRunsInContext() throws Exception {
+      assertNotNull(executorService.submit(() -> scope.get(factory)).get());
+   }
+
+   public void testTasksOnSameThreadGetDifferentObjects() throws Exception {
+      Object first = executorService.submit(() -> scope.get(factory)).get();
+      Object second = executorService.submit(() -> scope.get(factory)).get();
+
+      assertNotSame(first, second);
+   }
+
+   public void testCloseablesAreClosedWhenTaskFinishes() throws Exception {
+      AtomicBoolean closed = new AtomicBoolean(false);
+      executorService.submit(() -> scope.get(() -> (AutoCloseable) () -> closed.set(true))).get();
+
+      assertTrue(closed.get());
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      scope = new ContextScope();
+      executorService = new TaskScopedExecutorService(Executors.newSingleThreadExecutor(), scope);
+   }
+
+   @AfterMethod
+   protected void tearDown() {
+      executorService.shutdownNow();
+   }
+}
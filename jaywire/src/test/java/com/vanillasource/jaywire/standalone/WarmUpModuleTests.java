@@ -0,0 +1,133 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.standalone;
+
+import org.testng.annotations.Test;
+import org.testng.annotations.BeforeMethod;
+import static org.testng.Assert.*;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.vanillasource.jaywire.Factory;
+
+@Test
+public class WarmUpModuleTests implements WarmUpModule {
+   private SingletonScope scope;
+   private AtomicInteger sharedCreations;
+   private Factory<Object> sharedFactory;
+
+   public void testRootsAreResolved() {
+      Factory<Object> factory = () -> new Object();
+
+      warmUpInParallel(() -> scope.get(factory));
+
+      assertEquals(scope.get(factory).getClass(), Object.class);
+   }
+
+   public void testSharedDependencyIsCreatedOnce() {
+      warmUpInParallel(
+            () -> scope.get(() -> new Object[] { scope.get(sharedFactory) }),
+            () -> scope.get(() -> new String[] { scope.get(sharedFactory).toString() }));
+
+      assertEquals(sharedCreations.get(), 1);
+   }
+
+   public void testRootsAreResolvedInParallel() {
+      CountDownLatch bothStarted = new CountDownLatch(2);
+      ForkJoinPool pool = new ForkJoinPool(2);
+      try {
+         warmUpInParallel(pool, Arrays.asList(
+                  () -> awaitBoth(bothStarted),
+                  () -> awaitBoth(bothStarted)));
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   public void testRootsAreResolvedInParallelByDefault() {
+      CountDownLatch bothStarted = new CountDownLatch(2);
+
+      warmUpInParallel(
+            () -> awaitBoth(bothStarted),
+            () -> awaitBoth(bothStarted));
+   }
+
+   public void testWaitingForSharedDependencyDoesNotBlockPool() throws Exception {
+      CountDownLatch creationStarted = new CountDownLatch(1);
+      CountDownLatch otherRootDone = new CountDownLatch(1);
+      Factory<Object> slowFactory = () -> {
+         creationStarted.countDown();
+         await(otherRootDone);
+         return new Object();
+      };
+      Thread creator = new Thread(() -> scope.get(slowFactory));
+      ForkJoinPool pool = new ForkJoinPool(1);
+      try {
+         creator.start();
+         await(creationStarted);
+         warmUpInParallel(pool, Arrays.asList(
+                  () -> scope.get(slowFactory),
+                  () -> { otherRootDone.countDown(); return null; }));
+      } finally {
+         pool.shutdown();
+         creator.join();
+      }
+   }
+
+   public void testAllFailuresAreReported() {
+      try {
+         warmUpInParallel(
+               () -> { throw new IllegalArgumentException("first"); },
+               () -> { throw new IllegalArgumentException("second"); });
+         fail("warm up should fail");
+      } catch (IllegalStateException e) {
+         assertEquals(e.getSuppressed().length, 2);
+      }
+   }
+
+   private static void await(CountDownLatch latch) {
+      try {
+         assertTrue(latch.await(10, TimeUnit.SECONDS));
+      } catch (InterruptedException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private boolean awaitBoth(CountDownLatch latch) {
+      latch.countDown();
+      try {
+         assertTrue(latch.await(10, TimeUnit.SECONDS));
+      } catch (InterruptedException e) {
+         throw new IllegalStateException(e);
+      }
+      return true;
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      scope = new SingletonScope();
+      sharedCreations = new AtomicInteger();
+      sharedFactory = () -> {
+         sharedCreations.incrementAndGet();
+         return new Object();
+      };
+   }
+}
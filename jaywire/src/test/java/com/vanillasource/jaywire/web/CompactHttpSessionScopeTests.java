@@ -0,0 +1,95 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.web;
+
+import org.testng.annotations.*;
+import static org.testng.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.Matchers.*;
+import com.vanillasource.jaywire.Factory;
+import com.vanillasource.jaywire.serialization.SerializationUtils;
+import javax.servlet.http.HttpSession;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Test
+public class CompactHttpSessionScopeTests {
+   private CompactHttpSessionScope scope;
+   private HttpSession session;
+   private Map<String, Object> attributes;
+   private AtomicInteger attributeSets;
+   private Factory<String> factory1 = () -> "Ni";
+   private Factory<String> factory2 = () -> "Nu";
+
+   public void testAllObjectsAreStoredInOneAttribute() {
+      scope.get(factory1);
+      scope.get(factory2);
+
+      assertEquals(attributes.keySet().size(), 1);
+      assertTrue(attributes.containsKey(CompactHttpSessionScope.ATTRIBUTE_NAME));
+   }
+
+   public void testObjectsAreRetrievedFromAttribute() {
+      scope.get(factory1);
+
+      assertEquals(scope.get(() -> "Other"), "Other");
+      assertEquals(scope.get(factory1), "Ni");
+   }
+
+   public void testAttributeIsSetAgainForNewObjects() {
+      scope.get(factory1);
+      int setsBefore = attributeSets.get();
+      scope.get(factory2);
+
+      assertEquals(attributeSets.get(), setsBefore + 1);
+   }
+
+   public void testAttributeIsNotSetForExistingObjects() {
+      scope.get(factory1);
+      int setsBefore = attributeSets.get();
+      scope.get(factory1);
+
+      assertEquals(attributeSets.get(), setsBefore);
+   }
+
+   public void testObjectsAreFoundAfterSessionIsDeserialized() throws Exception {
+      scope.get(factory1);
+      attributes.put(CompactHttpSessionScope.ATTRIBUTE_NAME,
+            SerializationUtils.serializeThenDeserialize(attributes.get(CompactHttpSessionScope.ATTRIBUTE_NAME)));
+
+      assertEquals(scope.get(() -> "Other"), "Other");
+      assertEquals(scope.get(factory1), "Ni");
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      attributes = new ConcurrentHashMap<>();
+      session = mock(HttpSession.class);
+      when(session.getId()).thenReturn("session1");
+      when(session.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.getArguments()[0]));
+      attributeSets = new AtomicInteger();
+      doAnswer(invocation -> {
+         attributeSets.incrementAndGet();
+         return attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]);
+      }).when(session).setAttribute(anyString(), any());
+      scope = new CompactHttpSessionScope();
+      scope.setStorage(session);
+   }
+}
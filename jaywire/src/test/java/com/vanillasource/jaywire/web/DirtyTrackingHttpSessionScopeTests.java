@@ -0,0 +1,142 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.web;
+
+import org.testng.annotations.*;
+import static org.testng.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.Matchers.*;
+import com.vanillasource.jaywire.Factory;
+import javax.servlet.http.HttpSession;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Test
+public class DirtyTrackingHttpSessionScopeTests {
+   private HttpSession session;
+   private Map<String, Object> attributes;
+   private Factory<StringBuilder> factory = () -> new StringBuilder("Ni");
+
+   public void testUsedObjectIsSetAgainAtEndOfRequest() {
+      DirtyTrackingHttpSessionScope scope = new DirtyTrackingHttpSessionScope();
+      createInPreviousRequest(scope);
+
+      scope.setStorage(session);
+      scope.get(factory).append("Nu");
+      scope.clearStorage();
+
+      verify(session, times(2)).setAttribute(eq(factory.getKind()), any());
+   }
+
+   public void testUnusedObjectIsNotSetAgain() {
+      DirtyTrackingHttpSessionScope scope = new DirtyTrackingHttpSessionScope();
+      createInPreviousRequest(scope);
+
+      scope.setStorage(session);
+      scope.clearStorage();
+
+      verify(session, times(1)).setAttribute(eq(factory.getKind()), any());
+   }
+
+   public void testObjectThatIsNotDirtyIsNotSetAgain() {
+      DirtyTrackingHttpSessionScope scope = new DirtyTrackingHttpSessionScope(object -> false);
+      createInPreviousRequest(scope);
+
+      scope.setStorage(session);
+      scope.get(factory);
+      scope.clearStorage();
+
+      verify(session, times(1)).setAttribute(eq(factory.getKind()), any());
+   }
+
+   public void testInvalidatedSessionIsIgnored() {
+      DirtyTrackingHttpSessionScope scope = new DirtyTrackingHttpSessionScope();
+      createInPreviousRequest(scope);
+
+      scope.setStorage(session);
+      scope.get(factory);
+      doThrow(new IllegalStateException("invalidated")).when(session).setAttribute(anyString(), any());
+      when(session.getCreationTime()).thenThrow(new IllegalStateException("invalidated"));
+      scope.clearStorage();
+   }
+
+   public void testFailureOfValidSessionIsReportedAndOtherObjectsAreSet() {
+      Factory<StringBuilder> otherFactory = () -> new StringBuilder("Nu");
+      DirtyTrackingHttpSessionScope scope = new DirtyTrackingHttpSessionScope();
+      scope.setStorage(session);
+      scope.get(factory);
+      scope.get(otherFactory);
+      scope.clearStorage();
+
+      scope.setStorage(session);
+      scope.get(factory);
+      scope.get(otherFactory);
+      doThrow(new IllegalStateException("listener failed")).when(session).setAttribute(eq(factory.getKind()), any());
+      try {
+         scope.clearStorage();
+         fail("failure was not reported");
+      } catch (RuntimeException e) {
+         assertEquals(e.getSuppressed().length, 1);
+      }
+
+      verify(session, times(2)).setAttribute(eq(otherFactory.getKind()), any());
+   }
+
+   public void testNestedBindingDoesNotEndRequest() {
+      DirtyTrackingHttpSessionScope scope = new DirtyTrackingHttpSessionScope();
+      createInPreviousRequest(scope);
+
+      scope.setStorage(session);
+      StringBuilder object = scope.get(factory);
+      scope.runWithStorage(session, () -> {});
+      verify(session, times(1)).setAttribute(eq(factory.getKind()), any());
+      object.append("Nu");
+      scope.clearStorage();
+
+      verify(session, times(2)).setAttribute(eq(factory.getKind()), any());
+   }
+
+   public void testPropagatedTaskOnSameThreadDoesNotEndRequest() {
+      DirtyTrackingHttpSessionScope scope = new DirtyTrackingHttpSessionScope();
+      createInPreviousRequest(scope);
+
+      scope.setStorage(session);
+      scope.get(factory);
+      scope.propagate(() -> {}).run();
+      scope.clearStorage();
+
+      verify(session, times(2)).setAttribute(eq(factory.getKind()), any());
+   }
+
+   private void createInPreviousRequest(DirtyTrackingHttpSessionScope scope) {
+      scope.setStorage(session);
+      scope.get(factory);
+      scope.clearStorage();
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      attributes = new ConcurrentHashMap<>();
+      session = mock(HttpSession.class);
+      when(session.getId()).thenReturn("session1");
+      when(session.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.getArguments()[0]));
+      doAnswer(invocation -> attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]))
+         .when(session).setAttribute(anyString(), any());
+   }
+}
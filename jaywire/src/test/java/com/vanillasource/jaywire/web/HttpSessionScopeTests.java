@@ -0,0 +1,131 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.web;
+
+import org.testng.annotations.*;
+import static org.testng.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.Matchers.*;
+import com.vanillasource.jaywire.Factory;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Test
+public class HttpSessionScopeTests {
+   private HttpSessionScope scope;
+   private HttpSession session;
+   private Map<String, Object> attributes;
+   private ExecutorService executorService;
+
+   public void testObjectIsStoredInSession() {
+      scope.setStorage(session);
+      scope.get(() -> "Ni");
+
+      verify(session).setAttribute(anyString(), eq("Ni"));
+   }
+
+   public void testConcurrentRequestsOfSameSessionCreateObjectOnce() throws Exception {
+      AtomicInteger creations = new AtomicInteger();
+      CountDownLatch creationStarted = new CountDownLatch(1);
+      CountDownLatch secondRequestWaiting = new CountDownLatch(1);
+      Factory<Object> factory = () -> {
+         creations.incrementAndGet();
+         creationStarted.countDown();
+         await(secondRequestWaiting);
+         return new Object();
+      };
+      Future<Object> first = executorService.submit(() -> scope.callWithStorage(session, () -> scope.get(factory)));
+      await(creationStarted);
+      AtomicReference<Thread> secondThread = new AtomicReference<>();
+      Future<Object> second = executorService.submit(() -> {
+         secondThread.set(Thread.currentThread());
+         return scope.callWithStorage(session, () -> scope.get(factory));
+      });
+      awaitWaiting(secondThread);
+      secondRequestWaiting.countDown();
+
+      assertSame(first.get(), second.get());
+      assertEquals(creations.get(), 1);
+   }
+
+   public void testCloseableIsClosedWhenSessionIsInvalidated() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      scope.setStorage(session);
+      scope.get(() -> closeable);
+
+      HttpSessionBindingListener listener = (HttpSessionBindingListener) attributes.get(HttpSessionScope.CLOSEABLES_ATTRIBUTE_NAME);
+      listener.valueUnbound(new HttpSessionBindingEvent(session, HttpSessionScope.CLOSEABLES_ATTRIBUTE_NAME));
+
+      verify(closeable).close();
+   }
+
+   public void testNoCloseablesAttributeWithoutCloseables() {
+      scope.setStorage(session);
+      scope.get(() -> "Ni");
+
+      assertFalse(attributes.containsKey(HttpSessionScope.CLOSEABLES_ATTRIBUTE_NAME));
+   }
+
+   private static void awaitWaiting(AtomicReference<Thread> threadReference) throws InterruptedException {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (System.nanoTime() < deadline) {
+         Thread thread = threadReference.get();
+         if (thread != null && thread.getState() == Thread.State.WAITING) {
+            return;
+         }
+         Thread.sleep(1);
+      }
+      fail("thread did not start waiting");
+   }
+
+   private static void await(CountDownLatch latch) {
+      try {
+         latch.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      attributes = new ConcurrentHashMap<>();
+      session = mock(HttpSession.class);
+      when(session.getId()).thenReturn("session1");
+      when(session.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.getArguments()[0]));
+      doAnswer(invocation -> attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]))
+         .when(session).setAttribute(anyString(), any());
+      scope = new HttpSessionScope();
+      executorService = Executors.newFixedThreadPool(2);
+   }
+
+   @AfterMethod
+   protected void tearDown() {
+      executorService.shutdownNow();
+   }
+}
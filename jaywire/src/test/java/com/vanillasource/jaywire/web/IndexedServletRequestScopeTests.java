@@ -0,0 +1,88 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.web;
+
+import org.testng.annotations.*;
+import static org.testng.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.Matchers.*;
+import com.vanillasource.jaywire.Factory;
+import javax.servlet.ServletRequest;
+import java.util.Map;
+import java.util.HashMap;
+
+@Test
+public class IndexedServletRequestScopeTests {
+   private ServletRequest request;
+   private Map<String, Object> attributes;
+   private Factory<Object> factory = Object::new;
+
+   public void testSameRequestReturnsSameObject() {
+      IndexedServletRequestScope scope = new IndexedServletRequestScope();
+      scope.setStorage(request);
+
+      assertSame(scope.get(factory), scope.get(factory));
+   }
+
+   public void testObjectsAreNotStoredAsAttributes() {
+      IndexedServletRequestScope scope = new IndexedServletRequestScope();
+      scope.setStorage(request);
+      scope.get(factory);
+
+      assertEquals(attributes.keySet().size(), 1);
+      assertTrue(attributes.containsKey(IndexedServletRequestScope.ATTRIBUTE_NAME));
+   }
+
+   public void testObjectsAreMirroredIfRequested() {
+      IndexedServletRequestScope scope = new IndexedServletRequestScope(true);
+      scope.setStorage(request);
+      Object object = scope.get(factory);
+
+      assertSame(attributes.get(factory.getKind()), object);
+   }
+
+   public void testRebindingRequestReturnsSameObject() {
+      IndexedServletRequestScope scope = new IndexedServletRequestScope();
+      scope.setStorage(request);
+      Object object = scope.get(factory);
+      scope.clearStorage();
+      scope.setStorage(request);
+
+      assertSame(scope.get(factory), object);
+   }
+
+   public void testDifferentRequestsReturnDifferentObjects() {
+      IndexedServletRequestScope scope = new IndexedServletRequestScope();
+      scope.setStorage(request);
+      Object object = scope.get(factory);
+      scope.clearStorage();
+      scope.setStorage(mock(ServletRequest.class));
+
+      assertNotSame(scope.get(factory), object);
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      attributes = new HashMap<>();
+      request = mock(ServletRequest.class);
+      when(request.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.getArguments()[0]));
+      doAnswer(invocation -> attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]))
+         .when(request).setAttribute(anyString(), any());
+   }
+}
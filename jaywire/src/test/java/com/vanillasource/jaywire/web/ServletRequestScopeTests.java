@@ -0,0 +1,93 @@
+/**
+  * Copyright (C) 2015 VanillaSource
+  *
+  * This library is free software; you can redistribute it and/or
+  * modify it under the terms of the GNU Lesser General Public
+  * License as published by the Free Software Foundation; either
+  * version 3 of the License, or (at your option) any later version.
+  *
+  * This library is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+  * Lesser General Public License for more details.
+  *
+  * You should have received a copy of the GNU Lesser General Public
+  * License along with this library; if not, write to the Free Software
+  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+  */
+
+package com.vanillasource.jaywire.web;
+
+import org.testng.annotations.*;
+import static org.testng.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.Matchers.*;
+import org.mockito.InOrder;
+import javax.servlet.ServletRequest;
+import java.util.Map;
+import java.util.HashMap;
+
+@Test
+public class ServletRequestScopeTests {
+   private ServletRequestScope scope;
+   private ServletRequest request;
+   private Map<String, Object> attributes;
+
+   public void testCloseablesAreClosedInReverseOrder() throws Exception {
+      AutoCloseable closeable1 = mock(AutoCloseable.class);
+      AutoCloseable closeable2 = mock(AutoCloseable.class);
+      scope.get(() -> closeable1);
+      scope.get(() -> closeable2);
+
+      scope.closeObjects(request);
+
+      InOrder inOrder = inOrder(closeable1, closeable2);
+      inOrder.verify(closeable2).close();
+      inOrder.verify(closeable1).close();
+   }
+
+   public void testAllCloseablesAreClosedEvenIfOneFails() throws Exception {
+      AutoCloseable closeable1 = mock(AutoCloseable.class);
+      AutoCloseable closeable2 = mock(AutoCloseable.class);
+      doThrow(new Exception("close failed")).when(closeable2).close();
+      scope.get(() -> closeable1);
+      scope.get(() -> closeable2);
+
+      try {
+         scope.closeObjects(request);
+         fail("close failure was not thrown");
+      } catch (RuntimeException e) {
+         assertEquals(e.getSuppressed().length, 1);
+      }
+      verify(closeable1).close();
+   }
+
+   public void testCloseablesAreClosedOnlyOnce() throws Exception {
+      AutoCloseable closeable = mock(AutoCloseable.class);
+      scope.get(() -> closeable);
+
+      scope.closeObjects(request);
+      scope.closeObjects(request);
+
+      verify(closeable, times(1)).close();
+   }
+
+   public void testClosingWithoutCloseablesDoesNothing() {
+      scope.get(() -> "Ni");
+
+      scope.closeObjects(request);
+   }
+
+   @BeforeMethod
+   protected void setUp() {
+      attributes = new HashMap<>();
+      request = mock(ServletRequest.class);
+      when(request.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.getArguments()[0]));
+      doAnswer(invocation -> attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]))
+         .when(request).setAttribute(anyString(), any());
+      doAnswer(invocation -> attributes.remove(invocation.getArguments()[0]))
+         .when(request).removeAttribute(anyString());
+      scope = new ServletRequestScope();
+      scope.setStorage(request);
+   }
+}
@@ -23,6 +23,8 @@ import static org.testng.Assert.*;
 import com.vanillasource.jaywire.Factory;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Test
 public class ThreadLocalStorageScopeTests {
@@ -55,6 +57,103 @@ public class ThreadLocalStorageScopeTests {
       assertEquals(scope.get(factory), "Nu");
    }
 
+   public void testRunWithStorageBindsStorage() {
+      scope.runWithStorage(storage, () -> scope.get(factory));
+
+      assertEquals(storage.get(factory.getKind()), "Ni");
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testRunWithStorageUnbindsStorageAfterwards() {
+      scope.runWithStorage(storage, () -> {});
+
+      scope.get(factory);
+   }
+
+   public void testRunWithStorageRestoresPreviousStorage() {
+      scope.setStorage(storage);
+      scope.runWithStorage(new HashMap<>(), () -> {});
+
+      assertEquals(scope.get(factory), "Ni");
+      assertEquals(storage.get(factory.getKind()), "Ni");
+   }
+
+   public void testCallWithStorageReturnsResult() throws Exception {
+      assertEquals(scope.callWithStorage(storage, () -> scope.get(factory)), "Ni");
+   }
+
+   public void testPropagatedTaskRunsWithCapturedStorage() throws Exception {
+      scope.setStorage(storage);
+      Runnable task = scope.propagate(() -> { scope.get(factory); });
+      scope.clearStorage();
+
+      Thread thread = new Thread(task);
+      thread.start();
+      thread.join();
+
+      assertEquals(storage.get(factory.getKind()), "Ni");
+   }
+
+   public void testPropagatedCallableReturnsResult() throws Exception {
+      scope.setStorage(storage);
+      Callable<String> task = scope.propagate(() -> scope.get(factory));
+      scope.clearStorage();
+
+      assertEquals(task.call(), "Ni");
+   }
+
+   public void testPropagateWithoutStorageReturnsSameTask() {
+      Runnable task = () -> {};
+
+      assertSame(scope.propagate(task), task);
+   }
+
+   public void testLazyStorageIsNotCreatedIfNotUsed() {
+      AtomicInteger creations = new AtomicInteger();
+      scope.setLazyStorage(() -> { creations.incrementAndGet(); return storage; });
+      scope.clearStorage();
+
+      assertEquals(creations.get(), 0);
+   }
+
+   public void testLazyStorageIsCreatedOnceOnFirstUse() {
+      AtomicInteger creations = new AtomicInteger();
+      scope.setLazyStorage(() -> { creations.incrementAndGet(); return storage; });
+      scope.get(factory);
+      scope.get(factory);
+
+      assertEquals(creations.get(), 1);
+      assertEquals(storage.get(factory.getKind()), "Ni");
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testClearStorageClearsLazyStorage() {
+      scope.setLazyStorage(() -> storage);
+      scope.clearStorage();
+
+      scope.get(factory);
+   }
+
+   public void testLazyStorageIsPropagated() throws Exception {
+      scope.setLazyStorage(() -> storage);
+      Callable<String> task = scope.propagate(() -> scope.get(factory));
+      scope.clearStorage();
+
+      assertEquals(task.call(), "Ni");
+   }
+
+   public void testCallWithLazyStorageRestoresPreviousStorage() throws Exception {
+      Map<String, Object> nestedStorage = new HashMap<>();
+      scope.setStorage(storage);
+
+      scope.callWithLazyStorage(() -> nestedStorage, () -> scope.get(factory));
+
+      assertEquals(nestedStorage.get(factory.getKind()), "Ni");
+      assertFalse(storage.containsKey(factory.getKind()));
+      scope.get(factory);
+      assertEquals(storage.get(factory.getKind()), "Ni");
+   }
+
    @BeforeMethod
    protected void setUp() {
       scope = new ThreadLocalStorageScope<Map<String, Object>>(